@@ -0,0 +1,27 @@
+package dev.claudio.jpatemporal.benchmark;
+
+import dev.claudio.jpatemporal.annotation.EnableJpaTemporalRepositories;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Spring Boot application used by the benchmarks, backed by an in-memory H2 database whose schema is created by
+ * Hibernate from {@link BenchmarkEmployee}.
+ */
+@SpringBootApplication
+@EnableJpaTemporalRepositories
+public class BenchmarkApplication {
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(BenchmarkApplication.class)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.open-in-view=false",
+                        "logging.level.root=WARN"
+                )
+                .run();
+    }
+}
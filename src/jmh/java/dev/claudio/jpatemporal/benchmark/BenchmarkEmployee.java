@@ -0,0 +1,65 @@
+package dev.claudio.jpatemporal.benchmark;
+
+import dev.claudio.jpatemporal.annotation.UniqueKey;
+import dev.claudio.jpatemporal.domain.Temporal;
+
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.util.Objects;
+
+@Entity
+@Table(name = "benchmark_employee", indexes = @Index(name = "benchmark_employee_id_to_date_index", columnList = "employee_id, to_date", unique = true))
+@SuppressWarnings("checkstyle:MemberName")
+public class BenchmarkEmployee extends Temporal {
+    @UniqueKey
+    private Integer employee_id;
+    private String name;
+    private String job;
+
+    public BenchmarkEmployee() {
+    }
+
+    public BenchmarkEmployee(final Integer employeeId, final String name, final String job) {
+        this.employee_id = employeeId;
+        this.name = name;
+        this.job = job;
+    }
+
+    public Integer getEmployee_id() {
+        return employee_id;
+    }
+
+    public void setEmployee_id(final Integer employeeId) {
+        this.employee_id = employeeId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public String getJob() {
+        return job;
+    }
+
+    public void setJob(final String job) {
+        this.job = job;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BenchmarkEmployee)) return false;
+        final BenchmarkEmployee that = (BenchmarkEmployee) o;
+        return Objects.equals(employee_id, that.employee_id) && Objects.equals(name, that.name) && Objects.equals(job, that.job);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(employee_id, name, job);
+    }
+}
@@ -0,0 +1,6 @@
+package dev.claudio.jpatemporal.benchmark;
+
+import dev.claudio.jpatemporal.repository.TemporalRepository;
+
+public interface BenchmarkEmployeeRepository extends TemporalRepository<BenchmarkEmployee, Integer> {
+}
@@ -0,0 +1,207 @@
+package dev.claudio.jpatemporal.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.history.Revisions;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks the hot paths of {@link dev.claudio.jpatemporal.repository.impl.TemporalRepositoryImpl} against an
+ * in-memory H2 database.
+ * <p>
+ * Each benchmark starts with {@value #KEYS} unique keys, each having {@code historyDepth} revisions. Read benchmarks
+ * seed once per trial; write benchmarks re-seed before every iteration so that the history they add does not carry
+ * over and {@code historyDepth} keeps describing the measured state. {@code batchSize} is the number of entities passed
+ * to {@code saveAll} and {@code deleteAllByIdInBatch}; half of a {@code saveAll} batch is identical to the current rows
+ * (no-op) and the other half changed.
+ * <p>
+ * Run with {@code ./gradlew jmh -Pjmh.includes=TemporalRepositoryBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TemporalRepositoryBenchmark {
+    private static final int KEYS = 1000;
+
+    /**
+     * {@value #KEYS} keys with {@code historyDepth} revisions each, and the revision last saved for every key.
+     */
+    public abstract static class History {
+        @Param({"1", "10", "50"})
+        private int historyDepth;
+
+        private ConfigurableApplicationContext context;
+        private BenchmarkEmployeeRepository repository;
+        private Instant midHistory;
+        private int[] currentRevisions;
+        private int revision;
+        private int nextId;
+
+        /**
+         * Starts a fresh application context, closing the previous one (and so dropping its schema) if any.
+         */
+        void seed() {
+            tearDown();
+            context = BenchmarkApplication.start();
+            repository = context.getBean(BenchmarkEmployeeRepository.class);
+            final List<Integer> allIds = IntStream.rangeClosed(1, KEYS).boxed().collect(Collectors.toList());
+            currentRevisions = new int[KEYS + 1];
+            for (revision = 0; revision < historyDepth; revision++) {
+                repository.saveAll(allIds.stream().map(id -> employee(id, revision)).collect(Collectors.toList()));
+                if (revision == historyDepth / 2) {
+                    midHistory = Instant.now();
+                }
+            }
+            allIds.forEach(id -> currentRevisions[id] = historyDepth - 1);
+            nextId = 0;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (context != null) {
+                context.close();
+                context = null;
+            }
+        }
+
+        BenchmarkEmployeeRepository repository() {
+            return repository;
+        }
+
+        Instant midHistory() {
+            return midHistory;
+        }
+
+        int nextId() {
+            nextId = nextId % KEYS + 1;
+            return nextId;
+        }
+
+        /**
+         * @return the row currently saved for {@code id}.
+         */
+        BenchmarkEmployee currentRevision(final int id) {
+            return employee(id, currentRevisions[id]);
+        }
+
+        /**
+         * @return a row for {@code id} that differs from the current one, recorded as the new current revision.
+         */
+        BenchmarkEmployee nextRevision(final int id) {
+            currentRevisions[id] = revision++;
+            return currentRevision(id);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ReadState extends History {
+        @Setup(Level.Trial)
+        public void setup() {
+            seed();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class WriteState extends History {
+        @Param({"10", "100"})
+        private int batchSize;
+
+        private List<Integer> batchIds;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            seed();
+            batchIds = IntStream.rangeClosed(1, batchSize).boxed().collect(Collectors.toList());
+        }
+
+        int batchSize() {
+            return batchSize;
+        }
+
+        List<Integer> batchIds() {
+            return batchIds;
+        }
+    }
+
+    /**
+     * Kept apart from {@link WriteState} so that only {@link #deleteAllByIdInBatch(DeleteState)} pays for the
+     * per-invocation setup.
+     */
+    @State(Scope.Benchmark)
+    public static class DeleteState extends WriteState {
+        /**
+         * Reopens the rows closed by the previous invocation so that every invocation deletes {@code batchSize}
+         * current rows.
+         */
+        @Setup(Level.Invocation)
+        public void reopenDeleted() {
+            repository().saveAll(batchIds().stream().map(this::currentRevision).collect(Collectors.toList()));
+        }
+    }
+
+    @Benchmark
+    public BenchmarkEmployee save(final WriteState state) {
+        return state.repository().save(state.nextRevision(state.nextId()));
+    }
+
+    @Benchmark
+    public List<BenchmarkEmployee> saveAll(final WriteState state) {
+        final List<BenchmarkEmployee> batch = new ArrayList<>(state.batchSize());
+        for (int i = 0; i < state.batchSize(); i++) {
+            final int id = state.nextId();
+            // Even positions are changed, odd ones are identical to the current row
+            batch.add(i % 2 == 0 ? state.nextRevision(id) : state.currentRevision(id));
+        }
+        return state.repository().saveAll(batch);
+    }
+
+    @Benchmark
+    public List<BenchmarkEmployee> findAll(final ReadState state) {
+        return state.repository().findAll(state.midHistory());
+    }
+
+    @Benchmark
+    public Optional<BenchmarkEmployee> findById(final ReadState state) {
+        return state.repository().findById(state.nextId(), state.midHistory());
+    }
+
+    @Benchmark
+    public Revisions<Integer, BenchmarkEmployee> findRevisions(final ReadState state) {
+        return state.repository().findRevisions(state.nextId());
+    }
+
+    @Benchmark
+    public void deleteAllByIdInBatch(final DeleteState state) {
+        state.repository().deleteAllByIdInBatch(state.batchIds());
+    }
+
+    @Benchmark
+    public long count(final ReadState state) {
+        return state.repository().count(state.midHistory());
+    }
+
+    private static BenchmarkEmployee employee(final int id, final int revision) {
+        return new BenchmarkEmployee(id, "Employee " + id, "Job " + revision);
+    }
+}
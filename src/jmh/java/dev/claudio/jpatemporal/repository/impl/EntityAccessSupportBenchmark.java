@@ -0,0 +1,105 @@
+package dev.claudio.jpatemporal.repository.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.beans.FeatureDescriptor;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares {@link EntityAccessSupport} against the reflective {@link PropertyDescriptor}/{@code Method.invoke} access
+ * it used before, both looked up by attribute name and through a pre-resolved {@link EntityAccessSupport.Accessor}.
+ * <p>
+ * Run with {@code ./gradlew jmh -Pjmh.includes=EntityAccessSupportBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EntityAccessSupportBenchmark {
+    private static final Set<String> ATTRIBUTES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList("id", "fromDate", "toDate")));
+
+    private BenchmarkEntity entity;
+    private Instant instant;
+    private Map<String, PropertyDescriptor> reflectiveDescriptors;
+    private EntityAccessSupport<BenchmarkEntity> entityAccessSupport;
+    private EntityAccessSupport.Accessor<BenchmarkEntity> fromDateAccessor;
+
+    @Setup
+    public void setup() throws Exception {
+        entity = new BenchmarkEntity();
+        instant = Instant.now();
+        reflectiveDescriptors = Arrays.stream(Introspector.getBeanInfo(BenchmarkEntity.class, Object.class).getPropertyDescriptors())
+                .filter(it -> ATTRIBUTES.contains(it.getName()))
+                .collect(Collectors.toMap(FeatureDescriptor::getName, it -> it));
+        entityAccessSupport = new EntityAccessSupport<>(BenchmarkEntity.class, ATTRIBUTES);
+        fromDateAccessor = entityAccessSupport.accessor("fromDate");
+    }
+
+    @Benchmark
+    public Object reflectiveGetSet() throws Exception {
+        reflectiveDescriptors.get("fromDate").getWriteMethod().invoke(entity, instant);
+        return reflectiveDescriptors.get("fromDate").getReadMethod().invoke(entity);
+    }
+
+    @Benchmark
+    public Object byNameGetSet() {
+        entityAccessSupport.setAttribute("fromDate", entity, instant);
+        return entityAccessSupport.getAttribute("fromDate", entity);
+    }
+
+    @Benchmark
+    public Object accessorGetSet() {
+        fromDateAccessor.set(entity, instant);
+        return fromDateAccessor.get(entity);
+    }
+
+    public static class BenchmarkEntity {
+        private Long id;
+        private Instant fromDate;
+        private Instant toDate;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(final Long id) {
+            this.id = id;
+        }
+
+        public Instant getFromDate() {
+            return fromDate;
+        }
+
+        public void setFromDate(final Instant fromDate) {
+            this.fromDate = fromDate;
+        }
+
+        public Instant getToDate() {
+            return toDate;
+        }
+
+        public void setToDate(final Instant toDate) {
+            this.toDate = toDate;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package dev.claudio.jpatemporal.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+
+/**
+ * Optionally specifies a {@link String} attribute holding a content fingerprint of the entity, i.e. a hash of all of its
+ * persistent attributes other than {@link UniqueKey}, {@link TemporalId}, {@link FromDate}, {@link ToDate} and the
+ * fingerprint itself. Users are not expected to ever set the value referenced by this field. The database column
+ * should hold at least 44 characters.
+ * <p>
+ * When present, saving an entity no longer loads the current row to compare it with {@code equals}. Instead the
+ * fingerprint is computed on write and compared by the database within the statement closing the current row, only
+ * rows whose content actually changed get a new revision. Attribute values are fingerprinted through a canonical
+ * encoding of their type, e.g. {@link java.math.BigDecimal}s regardless of their scale and arrays by content. The
+ * supported types are strings, primitives and their wrappers, enums, {@link java.math.BigDecimal},
+ * {@link java.math.BigInteger}, {@link java.util.UUID}, the {@code java.time} and {@code java.util.Date} types and
+ * primitive arrays: repositories of entities with attributes of any other type (e.g. embedded objects) fail to start.
+ *
+ * @see FromDate
+ * @see ToDate
+ */
+@Target({METHOD, FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Fingerprint {
+}
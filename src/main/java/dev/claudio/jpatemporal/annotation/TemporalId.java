@@ -14,7 +14,8 @@ import static java.lang.annotation.ElementType.METHOD;
  *    <li>The same attribute should also be annotated with {@link javax.persistence.Id}.</li>
  *    <li>The same attribute should also be annotated with {@link javax.persistence.GeneratedValue}. It is suggested
  *    {@link javax.persistence.GenerationType#IDENTITY} to be used for simplicity and that works with a column that has
- *    type {@code "INT AUTO_INCREMENT PRIMARY KEY"}.</li>
+ *    type {@code "INT AUTO_INCREMENT PRIMARY KEY"}. Use {@link javax.persistence.GenerationType#SEQUENCE} instead
+ *    (e.g. {@link dev.claudio.jpatemporal.domain.SequencedTemporal}) when inserts should be JDBC batched.</li>
  *</ul>
  *
  * It is possible to annotate the attribute with {@link javax.persistence.Column} in order to use a different database
@@ -0,0 +1,129 @@
+package dev.claudio.jpatemporal.annotation;
+
+import dev.claudio.jpatemporal.repository.SaveMode;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Optional per-repository settings for repositories extending
+ * {@link dev.claudio.jpatemporal.repository.TemporalRepository}. Annotate the repository interface itself, e.g.:
+ * <pre>
+ * &#64;TemporalRepositoryOptions(streamFetchSize = 500)
+ * public interface EmployeeRepository extends TemporalRepository&lt;Employee, Integer&gt; { }
+ * </pre>
+ * Repositories that aren't annotated use the defaults declared here.
+ *
+ * @see dev.claudio.jpatemporal.repository.support.DefaultRepositoryFactoryBean
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TemporalRepositoryOptions {
+
+    /**
+     * JDBC fetch size hinted to the persistence provider by the streaming finders (e.g.
+     * {@link dev.claudio.jpatemporal.repository.TemporalRepository#streamAll(java.time.Instant)}). A value of
+     * {@code 0} or less leaves the provider's default in place.
+     */
+    int streamFetchSize() default 1000;
+
+    /**
+     * Number of rows {@link dev.claudio.jpatemporal.repository.TemporalRepository#saveAll(Iterable)} inserts per JDBC
+     * batch. After each batch the persistence context is flushed and the inserted entities are detached so that large
+     * bulk loads don't accumulate managed entities. A value of {@code 0} or less (the default) disables batching.
+     * <p>
+     * Insert batching requires a {@link TemporalId} that isn't generated by an identity column, see
+     * {@link dev.claudio.jpatemporal.domain.SequencedTemporal}.
+     */
+    int insertBatchSize() default 0;
+
+    /**
+     * Maximum number of bind parameters in a single {@code IN} list on the
+     * {@link UniqueKey} (e.g. by {@code findAllById}, {@code saveAll} and the batch deletes). Larger id sets are split
+     * into several queries and each list is padded to a power of two so that only a handful of distinct SQL statements
+     * end up in the query plan cache. An embedded key counts one parameter per attribute.
+     */
+    int inListMaxParameters() default 512;
+
+    /**
+     * How {@code save} and {@code saveAll} deal with entities identical to their current row, see {@link SaveMode}.
+     * Can be overridden per call with
+     * {@link dev.claudio.jpatemporal.repository.TemporalRepository#save(Object, SaveMode)}.
+     */
+    SaveMode saveMode() default SaveMode.COMPARE;
+
+    /**
+     * Whether the as-of finders (e.g. {@code findAll(spec, asOf)}, {@code findAllById(ids, asOf)}) and the revision
+     * finders load their rows read-only and detach them once read. Long audit reads then don't grow the persistence
+     * context, nor slow down later flushes with dirty-checking snapshots. Entities returned by those finders are
+     * detached even if they were already managed, so changes to them are no longer tracked.
+     */
+    boolean detachHistoryReads() default false;
+
+    /**
+     * Maximum number of entries in the history cache of {@code findById(id, asOf)} and {@code findAllById(ids, asOf)},
+     * one per unique key and instant. Closed rows never change so reads as of an instant older than
+     * {@link #historyCacheSafetyHorizonSeconds()} are cached and served as detached copies, least recently used entries
+     * being evicted first. A value of {@code 0} or less (the default) disables the cache.
+     * <p>
+     * The cache relies on rows only being written through temporal repositories, which always write as of the current
+     * time: changing past rows any other way (e.g. with native queries) isn't reflected in the cache.
+     */
+    int historyCacheSize() default 0;
+
+    /**
+     * How far in the past, in seconds, an as-of instant needs to be for its reads to be cached, see
+     * {@link #historyCacheSize()}. It needs to exceed the duration of the longest transaction writing to the repository
+     * as rows are written as of the time they're saved, not the time they're committed.
+     */
+    long historyCacheSafetyHorizonSeconds() default 300;
+
+    /**
+     * Maximum number of current rows cached by unique key for {@code findById(id)} and {@code existsById(id)}, least
+     * recently used entries being evicted first. With the cache enabled {@code findById(id)} always returns detached
+     * copies, whether the row was cached or not. A value of {@code 0} or less (the default) disables the cache.
+     * <p>
+     * Saves and deletes invalidate the keys they write once their transaction completes, reads within that transaction
+     * bypassing the cache for those keys. Rows written other than through temporal repositories (e.g. by other
+     * applications) are only picked up once their entries expire, see {@link #currentStateCacheTtlSeconds()}.
+     */
+    int currentStateCacheSize() default 0;
+
+    /**
+     * Seconds after which entries of the current state cache expire, see {@link #currentStateCacheSize()}. It must be
+     * positive: under repeatable read isolation (e.g. MySQL's default) a transaction that read other rows before a
+     * write committed can go on reading, and caching, the row as it was before the write. Expiry bounds for how long
+     * such a row can be served.
+     */
+    long currentStateCacheTtlSeconds() default 60;
+
+    /**
+     * Whether to hold all rows of the repository in an in-memory interval index answering {@code findById(id, asOf)},
+     * {@code findAllById(ids, asOf)}, {@code findAll(asOf)} and {@code count(asOf)} without querying the database. Meant
+     * for small reference tables read at arbitrary instants at a high rate: the whole table is loaded on first use and
+     * then refreshed incrementally, see {@link #residentRefreshIntervalMillis()}. Results are detached copies.
+     * <p>
+     * Reads within a transaction that wrote to the repository bypass the index and writes through the repository make
+     * the next read refresh it. Rows written other than through temporal repositories are picked up by the periodic
+     * refresh as long as they're committed within {@link #residentRefreshLagSeconds()} of being written, but rows
+     * physically deleted aren't.
+     */
+    boolean resident() default false;
+
+    /**
+     * Minimum number of milliseconds between refreshes of the resident index, see {@link #resident()}. Each refresh
+     * reads the rows opened or closed since the previous one.
+     */
+    long residentRefreshIntervalMillis() default 1000;
+
+    /**
+     * Seconds each refresh of the resident index looks back past the previous refresh, see {@link #resident()}. As rows
+     * are written as of the time they're saved, not the time they're committed, it needs to exceed the duration of the
+     * longest transaction writing to the table.
+     */
+    long residentRefreshLagSeconds() default 300;
+}
@@ -0,0 +1,55 @@
+package dev.claudio.jpatemporal.domain;
+
+import dev.claudio.jpatemporal.annotation.FromDate;
+import dev.claudio.jpatemporal.annotation.TemporalId;
+import dev.claudio.jpatemporal.annotation.ToDate;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.SequenceGenerator;
+import java.time.Instant;
+
+/**
+ * Alternative to {@link Temporal} that generates {@link TemporalId} values from the database sequence
+ * {@value #SEQUENCE_NAME} instead of an identity column.
+ * <p>
+ * Identity columns force the persistence provider to execute each insert as soon as the entity is persisted, which
+ * disables JDBC insert batching. Sequence ids are pre-allocated in blocks of {@value #ALLOCATION_SIZE} so inserts can
+ * be batched, see {@link dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions#insertBatchSize()}. The sequence
+ * must increment by {@value #ALLOCATION_SIZE}, e.g. {@code create sequence temporal_id_seq increment by 50;}.
+ * <p>
+ * As with {@link Temporal}, the extending class should NOT use this class' {@code hashCode()} and {@code equals()}
+ * methods.
+ *
+ * @author Claudio Consolmagno
+ */
+@Getter
+@Setter
+@ToString
+@MappedSuperclass
+@SuppressWarnings("checkstyle:MemberName")
+public abstract class SequencedTemporal {
+    public static final String SEQUENCE_NAME = "temporal_id_seq";
+    public static final int ALLOCATION_SIZE = 50;
+
+    protected SequencedTemporal() {
+        // This constructor is intentionally empty. Nothing special is needed here.
+    }
+
+    @Id
+    @TemporalId
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SEQUENCE_NAME)
+    @SequenceGenerator(name = SEQUENCE_NAME, sequenceName = SEQUENCE_NAME, allocationSize = ALLOCATION_SIZE)
+    private Long temporal_id;
+
+    @FromDate
+    private Instant from_date;
+
+    @ToDate
+    private Instant to_date;
+}
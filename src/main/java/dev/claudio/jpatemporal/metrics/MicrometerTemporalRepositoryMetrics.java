@@ -0,0 +1,165 @@
+package dev.claudio.jpatemporal.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TemporalRepositoryMetrics} publishing to a Micrometer {@link MeterRegistry}. Micrometer is an optional
+ * dependency of this library and needs to be on the classpath to use this class, e.g.:
+ * <pre>
+ * &#64;Bean
+ * public TemporalRepositoryMetrics temporalRepositoryMetrics(MeterRegistry meterRegistry) {
+ *     return new MicrometerTemporalRepositoryMetrics(meterRegistry);
+ * }
+ * </pre>
+ * All meters are tagged with the simple name of the entity ({@value #TAG_ENTITY}), timers are additionally tagged with
+ * the operation ({@value #TAG_OPERATION}) and cache lookups with either {@code hit} or {@code miss}
+ * ({@value #TAG_RESULT}).
+ * <p>
+ * Meters are registered on first use and then kept per entity so that recording doesn't go through the registry's
+ * lookup on every repository call. Removing meters from the registry discards the kept meters.
+ */
+public class MicrometerTemporalRepositoryMetrics implements TemporalRepositoryMetrics {
+    public static final String OPERATION_TIMER = "jpatemporal.repository.operation";
+    public static final String ROWS_CLOSED_COUNTER = "jpatemporal.repository.rows.closed";
+    public static final String ROWS_INSERTED_COUNTER = "jpatemporal.repository.rows.inserted";
+    public static final String SKIPPED_SAVES_COUNTER = "jpatemporal.repository.saves.skipped";
+    public static final String IN_LIST_SIZE_SUMMARY = "jpatemporal.repository.inlist.size";
+    public static final String HISTORY_CACHE_COUNTER = "jpatemporal.repository.history.cache";
+    public static final String CURRENT_STATE_CACHE_COUNTER = "jpatemporal.repository.current.cache";
+    public static final String TAG_ENTITY = "entity";
+    public static final String TAG_OPERATION = "operation";
+    public static final String TAG_RESULT = "result";
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Class<?>, EntityMeters> entityMeters = new ConcurrentHashMap<>();
+
+    public MicrometerTemporalRepositoryMetrics(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        meterRegistry.config().onMeterRemoved(meter -> entityMeters.clear());
+    }
+
+    @Override
+    public void recordOperation(final Class<?> domainClass, final Operation operation, final long durationNanos) {
+        meters(domainClass).timer(operation).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordRowsClosed(final Class<?> domainClass, final int rows) {
+        meters(domainClass).counter(CounterMeter.ROWS_CLOSED).increment(rows);
+    }
+
+    @Override
+    public void recordRowsInserted(final Class<?> domainClass, final int rows) {
+        meters(domainClass).counter(CounterMeter.ROWS_INSERTED).increment(rows);
+    }
+
+    @Override
+    public void recordSkippedSaves(final Class<?> domainClass, final int entities) {
+        meters(domainClass).counter(CounterMeter.SKIPPED_SAVES).increment(entities);
+    }
+
+    @Override
+    public void recordInListSize(final Class<?> domainClass, final int size) {
+        meters(domainClass).inListSize().record(size);
+    }
+
+    @Override
+    public void recordHistoryCacheLookups(final Class<?> domainClass, final int hits, final int misses) {
+        if (hits > 0) meters(domainClass).counter(CounterMeter.HISTORY_CACHE_HIT).increment(hits);
+        if (misses > 0) meters(domainClass).counter(CounterMeter.HISTORY_CACHE_MISS).increment(misses);
+    }
+
+    @Override
+    public void recordCurrentStateCacheLookups(final Class<?> domainClass, final int hits, final int misses) {
+        if (hits > 0) meters(domainClass).counter(CounterMeter.CURRENT_STATE_CACHE_HIT).increment(hits);
+        if (misses > 0) meters(domainClass).counter(CounterMeter.CURRENT_STATE_CACHE_MISS).increment(misses);
+    }
+
+    private EntityMeters meters(final Class<?> domainClass) {
+        final EntityMeters meters = entityMeters.get(domainClass);
+        return meters != null ? meters : entityMeters.computeIfAbsent(domainClass, EntityMeters::new);
+    }
+
+    /**
+     * The counters published, along with their {@value #TAG_RESULT} tag if any.
+     */
+    private enum CounterMeter {
+        ROWS_CLOSED(ROWS_CLOSED_COUNTER, "Current rows closed by saves and deletes", null),
+        ROWS_INSERTED(ROWS_INSERTED_COUNTER, "Current rows inserted by saves", null),
+        SKIPPED_SAVES(SKIPPED_SAVES_COUNTER, "Saved entities skipped for being identical to their current row", null),
+        HISTORY_CACHE_HIT(HISTORY_CACHE_COUNTER, "Unique keys looked up in the repository's cache", "hit"),
+        HISTORY_CACHE_MISS(HISTORY_CACHE_COUNTER, "Unique keys looked up in the repository's cache", "miss"),
+        CURRENT_STATE_CACHE_HIT(CURRENT_STATE_CACHE_COUNTER, "Unique keys looked up in the repository's cache", "hit"),
+        CURRENT_STATE_CACHE_MISS(CURRENT_STATE_CACHE_COUNTER, "Unique keys looked up in the repository's cache", "miss");
+
+        private final String meterName;
+        private final String description;
+        private final String result;
+
+        CounterMeter(final String meterName, final String description, final String result) {
+            this.meterName = meterName;
+            this.description = description;
+            this.result = result;
+        }
+    }
+
+    /**
+     * The meters of a single entity, each registered on first use. Concurrent first uses may both register the meter,
+     * which is harmless as the registry returns the same meter for the same name and tags.
+     */
+    private final class EntityMeters {
+        private final String entity;
+        private final Timer[] timers = new Timer[Operation.values().length];
+        private final Counter[] counters = new Counter[CounterMeter.values().length];
+        private DistributionSummary inListSize;
+
+        EntityMeters(final Class<?> domainClass) {
+            this.entity = domainClass.getSimpleName();
+        }
+
+        Timer timer(final Operation operation) {
+            Timer timer = timers[operation.ordinal()];
+            if (timer == null) {
+                timer = Timer.builder(OPERATION_TIMER)
+                        .description("Time spent in temporal repository operations")
+                        .tag(TAG_ENTITY, entity)
+                        .tag(TAG_OPERATION, operation.getOperationName())
+                        .register(meterRegistry);
+                timers[operation.ordinal()] = timer;
+            }
+            return timer;
+        }
+
+        Counter counter(final CounterMeter meter) {
+            Counter counter = counters[meter.ordinal()];
+            if (counter == null) {
+                final Counter.Builder builder = Counter.builder(meter.meterName)
+                        .description(meter.description)
+                        .tag(TAG_ENTITY, entity);
+                if (meter.result != null) builder.tag(TAG_RESULT, meter.result);
+                counter = builder.register(meterRegistry);
+                counters[meter.ordinal()] = counter;
+            }
+            return counter;
+        }
+
+        DistributionSummary inListSize() {
+            DistributionSummary summary = inListSize;
+            if (summary == null) {
+                summary = DistributionSummary.builder(IN_LIST_SIZE_SUMMARY)
+                        .description("Number of unique keys bound to IN list queries")
+                        .tag(TAG_ENTITY, entity)
+                        .register(meterRegistry);
+                inListSize = summary;
+            }
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package dev.claudio.jpatemporal.metrics;
+
+/**
+ * Instrumentation SPI for {@link dev.claudio.jpatemporal.repository.impl.TemporalRepositoryImpl}. Declare a bean
+ * implementing this interface and every {@link dev.claudio.jpatemporal.repository.TemporalRepository} will report to
+ * it, see {@link dev.claudio.jpatemporal.repository.support.DefaultRepositoryFactoryBean}. All methods default to doing
+ * nothing so implementations only need to override what they're interested in.
+ * <p>
+ * Methods are called synchronously on the calling thread so implementations should be cheap and must be thread-safe.
+ *
+ * @see MicrometerTemporalRepositoryMetrics
+ */
+public interface TemporalRepositoryMetrics {
+
+    /**
+     * Implementation used when no {@link TemporalRepositoryMetrics} bean is declared.
+     */
+    TemporalRepositoryMetrics NOOP = new TemporalRepositoryMetrics() { };
+
+    /**
+     * Called once an {@code operation} has completed, whether successfully or not.
+     *
+     * @param domainClass the entity type of the repository.
+     * @param operation the repository operation.
+     * @param durationNanos wall clock duration of the operation, including time spent in the persistence provider.
+     */
+    default void recordOperation(final Class<?> domainClass, final Operation operation, final long durationNanos) { }
+
+    /**
+     * Called with the number of current rows closed (i.e. {@link dev.claudio.jpatemporal.annotation.ToDate} set) by a
+     * save or delete.
+     */
+    default void recordRowsClosed(final Class<?> domainClass, final int rows) { }
+
+    /**
+     * Called with the number of rows inserted as new current rows by a save.
+     */
+    default void recordRowsInserted(final Class<?> domainClass, final int rows) { }
+
+    /**
+     * Called with the number of entities a save didn't write because they were identical to their current row.
+     */
+    default void recordSkippedSaves(final Class<?> domainClass, final int entities) { }
+
+    /**
+     * Called with the (padded) number of unique keys bound to each {@code IN} list query.
+     */
+    default void recordInListSize(final Class<?> domainClass, final int size) { }
+
+    /**
+     * Called with the number of unique keys looked up in the history cache of an as-of read, split into those found
+     * in the cache and those that had to be read from the database.
+     *
+     * @see dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions#historyCacheSize()
+     */
+    default void recordHistoryCacheLookups(final Class<?> domainClass, final int hits, final int misses) { }
+
+    /**
+     * Called with the number of unique keys looked up in the current state cache, split into those found in the cache
+     * and those that had to be read from the database.
+     *
+     * @see dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions#currentStateCacheSize()
+     */
+    default void recordCurrentStateCacheLookups(final Class<?> domainClass, final int hits, final int misses) { }
+
+    /**
+     * Repository operations reported to {@link #recordOperation(Class, Operation, long)}.
+     */
+    enum Operation {
+        FIND_ALL_BY_ID("findAllById"),
+        FIND_ALL("findAll"),
+        COUNT("count"),
+        EXISTS("exists"),
+        SAVE("save"),
+        SAVE_ALL("saveAll"),
+        DELETE("delete"),
+        UPDATE("update"),
+        FIND_REVISIONS("findRevisions");
+
+        private final String operationName;
+
+        Operation(final String operationName) {
+            this.operationName = operationName;
+        }
+
+        /**
+         * @return the name of the operation as used for metric tags, e.g. {@code saveAll}.
+         */
+        public String getOperationName() {
+            return operationName;
+        }
+    }
+}
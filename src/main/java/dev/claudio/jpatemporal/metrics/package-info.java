@@ -0,0 +1 @@
+package dev.claudio.jpatemporal.metrics;
@@ -0,0 +1,53 @@
+package dev.claudio.jpatemporal.repository;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The attributes that changed between two consecutive revisions of the entity of a
+ * {@link dev.claudio.jpatemporal.annotation.UniqueKey}, as returned by
+ * {@link TemporalRepository#findRevisionDiffs(Object)}. Temporal attributes aren't compared.
+ *
+ * @param <ID> the type of the entity's {@link dev.claudio.jpatemporal.annotation.UniqueKey}
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class RevisionDiff<ID> {
+    /** The unique key of the changed entity. */
+    private final ID id;
+    /** When the newer revision became current. */
+    private final Instant changedAt;
+    /** The changed attributes by name, in attribute name order. */
+    private final Map<String, Change> changes;
+
+    public RevisionDiff(final ID id, final Instant changedAt, final Map<String, Change> changes) {
+        this.id = id;
+        this.changedAt = changedAt;
+        this.changes = Collections.unmodifiableMap(new LinkedHashMap<>(changes));
+    }
+
+    /**
+     * The old and new value of a changed attribute.
+     */
+    @Getter
+    @ToString
+    @EqualsAndHashCode
+    public static final class Change {
+        /** The attribute's value in the older revision. */
+        private final Object oldValue;
+        /** The attribute's value in the newer revision. */
+        private final Object newValue;
+
+        public Change(final Object oldValue, final Object newValue) {
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+    }
+}
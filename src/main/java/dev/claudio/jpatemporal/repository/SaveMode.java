@@ -0,0 +1,24 @@
+package dev.claudio.jpatemporal.repository;
+
+/**
+ * Defines how {@link TemporalRepository} save methods deal with entities that are identical to their current row.
+ *
+ * @see dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions#saveMode()
+ * @see TemporalRepository#save(Object, SaveMode)
+ */
+public enum SaveMode {
+    /**
+     * The entity is compared with its current row (with {@code equals} or, when declared, the
+     * {@link dev.claudio.jpatemporal.annotation.Fingerprint}) and no new revision is created if they are the same.
+     */
+    COMPARE,
+
+    /**
+     * The current row is closed and the entity inserted without any comparison, i.e. every save creates a new
+     * revision. This saves the read of the current row and suits append-heavy ingestion where every write is known to
+     * be a real change. Duplicate current rows are still prevented by the unique index on the
+     * {@link dev.claudio.jpatemporal.annotation.UniqueKey} and {@link dev.claudio.jpatemporal.annotation.ToDate}
+     * columns.
+     */
+    BLIND
+}
@@ -0,0 +1,50 @@
+package dev.claudio.jpatemporal.repository;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * A change to the entity of a {@link dev.claudio.jpatemporal.annotation.UniqueKey}, as returned by
+ * {@link TemporalRepository#findChanges(Instant, Instant)}.
+ *
+ * @param <T>  the type of the entity
+ * @param <ID> the type of the entity's {@link dev.claudio.jpatemporal.annotation.UniqueKey}
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class TemporalChange<T, ID> {
+    /** The kind of change. */
+    private final Type type;
+    /** The unique key of the changed entity. */
+    private final ID id;
+    /** When the change happened, also the watermark to resume a change feed from once all changes up to it are consumed. */
+    private final Instant changedAt;
+    /** The row closed by the change, {@literal null} for {@link Type#INSERT}. */
+    private final T previous;
+    /** The row opened by the change, {@literal null} for {@link Type#DELETE}. */
+    private final T current;
+
+    public TemporalChange(final Type type, final ID id, final Instant changedAt, final T previous, final T current) {
+        this.type = type;
+        this.id = id;
+        this.changedAt = changedAt;
+        this.previous = previous;
+        this.current = current;
+    }
+
+    /**
+     * The kinds of {@link TemporalChange}.
+     */
+    public enum Type {
+        /** A row was opened for a unique key that had no current row. */
+        INSERT,
+        /** The current row of a unique key was closed and a new one opened at the same instant. */
+        UPDATE,
+        /** The current row of a unique key was closed without a new one being opened. */
+        DELETE
+    }
+}
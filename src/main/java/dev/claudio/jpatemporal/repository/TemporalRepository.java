@@ -1,5 +1,10 @@
 package dev.claudio.jpatemporal.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.history.Revisions;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
@@ -8,8 +13,13 @@ import org.springframework.data.repository.history.RevisionRepository;
 import org.springframework.lang.NonNull;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * A temporal repository extension of {@link org.springframework.data.jpa.repository.JpaRepository},
@@ -52,6 +62,29 @@ public interface TemporalRepository<T, ID> extends JpaRepository<T, ID>, JpaSpec
      */
     List<T> findAllById(@NonNull Iterable<ID> ids, Instant asOfInstant);
 
+    /**
+     * Retrieves the entity with the given {@code id} at each of the given {@code instants}, reading all of the
+     * entity's rows overlapping those instants in a single query.
+     *
+     * @param id must not be {@literal null}.
+     * @param instants must not be {@literal null} nor contain any {@literal null} values.
+     * @return the entity at each instant, ordered by instant; instants at which the entity didn't exist are omitted.
+     *         Never {@literal null}.
+     * @see #findAllById(Iterable, Collection)
+     */
+    NavigableMap<Instant, T> findById(@NonNull ID id, @NonNull Collection<Instant> instants);
+
+    /**
+     * Retrieves the entities with the given {@code ids} at each of the given {@code instants}, reading all rows of
+     * those entities overlapping the instants in a single query (per chunk of ids).
+     *
+     * @param ids must not be {@literal null} nor contain any {@literal null} values.
+     * @param instants must not be {@literal null} nor contain any {@literal null} values.
+     * @return per id, the entity at each instant ordered by instant; instants at which an entity didn't exist are
+     *         omitted, as are ids that didn't exist at any of the instants. Never {@literal null}.
+     */
+    Map<ID, NavigableMap<Instant, T>> findAllById(@NonNull Iterable<ID> ids, @NonNull Collection<Instant> instants);
+
     /**
      * Returns all instances of the type {@code T} at the given {@code asOfInstant}.
      *
@@ -69,6 +102,240 @@ public interface TemporalRepository<T, ID> extends JpaRepository<T, ID>, JpaSpec
      */
     List<T> findAll(Specification<T> spec, @NonNull Instant asOfInstant);
 
+    /**
+     * Returns all entities matching the given {@link Specification} at the given {@code asOfInstant}, sorted by the
+     * given {@link Sort}.
+     *
+     * @param spec can be {@literal null}.
+     * @param sort must not be {@literal null}.
+     * @param asOfInstant must not be {@literal null}.
+     * @return never {@literal null}.
+     */
+    List<T> findAll(Specification<T> spec, @NonNull Sort sort, @NonNull Instant asOfInstant);
+
+    /**
+     * Returns a {@link Page} of entities matching the given {@link Specification} at the given {@code asOfInstant}.
+     * Pages are read with LIMIT/OFFSET so deep pages get slower, see
+     * {@link #findAllAfter(Specification, Sort, Object, int, Instant)} for a variant that doesn't.
+     *
+     * @param spec can be {@literal null}.
+     * @param pageable must not be {@literal null}.
+     * @param asOfInstant must not be {@literal null}.
+     * @return never {@literal null}.
+     */
+    Page<T> findAll(Specification<T> spec, @NonNull Pageable pageable, @NonNull Instant asOfInstant);
+
+    /**
+     * Returns the next {@link Slice} of entities matching the given {@link Specification} at the given
+     * {@code asOfInstant}, seeking past {@code lastSeen} on the sort's properties rather than skipping rows with an
+     * OFFSET. This keeps every slice as fast as the first one when the sort's properties are indexed.
+     * <p>
+     * The {@link dev.claudio.jpatemporal.annotation.TemporalId} is appended to the sort to make it total. Entities'
+     * sort properties must not be {@literal null}.
+     *
+     * @param spec can be {@literal null}.
+     * @param sort must not be {@literal null}.
+     * @param lastSeen the last entity of the previous slice, {@literal null} for the first slice.
+     * @param size the maximum number of entities of the slice, must be greater than zero.
+     * @param asOfInstant must not be {@literal null}.
+     * @return never {@literal null}.
+     */
+    Slice<T> findAllAfter(Specification<T> spec, @NonNull Sort sort, T lastSeen, int size, @NonNull Instant asOfInstant);
+
+    /**
+     * Returns all entities matching the given {@link Specification} at the given {@code asOfInstant} as projections of
+     * the given {@code type}, either a DTO class whose constructor parameters are named after entity attributes or a
+     * Spring Data interface projection. Only the attributes the projection needs are selected and no entity is loaded
+     * into the persistence context, except for open interface projections which need whole entities (returned
+     * detached).
+     *
+     * @param spec can be {@literal null}.
+     * @param asOfInstant must not be {@literal null}.
+     * @param type must not be {@literal null}.
+     * @return never {@literal null}.
+     */
+    <P> List<P> findAll(Specification<T> spec, @NonNull Instant asOfInstant, @NonNull Class<P> type);
+
+    /**
+     * Returns the entities with the given {@code ids} at the given {@code asOfInstant} as projections of the given
+     * {@code type}, see {@link #findAll(Specification, Instant, Class)}.
+     *
+     * @param ids must not be {@literal null} nor contain any {@literal null} values.
+     * @param asOfInstant can be {@literal null} to return all rows of the entities.
+     * @param type must not be {@literal null}.
+     * @return never {@literal null}.
+     */
+    <P> List<P> findAllById(@NonNull Iterable<ID> ids, Instant asOfInstant, @NonNull Class<P> type);
+
+    /**
+     * Returns every row of the entities matching the given {@link Specification} that was current at some point
+     * between {@code fromInstant} (inclusive) and {@code toInstant} (exclusive), ordered by
+     * {@link dev.claudio.jpatemporal.annotation.FromDate}, as projections of the given {@code type}, see
+     * {@link #findAll(Specification, Instant, Class)}.
+     *
+     * @param spec can be {@literal null}.
+     * @param fromInstant must not be {@literal null}.
+     * @param toInstant must not be {@literal null}.
+     * @param type must not be {@literal null}.
+     * @return never {@literal null}.
+     */
+    <P> List<P> findAllBetween(Specification<T> spec, @NonNull Instant fromInstant, @NonNull Instant toInstant, @NonNull Class<P> type);
+
+    /**
+     * Returns all revisions of the entity with the given {@code id}, oldest first, as projections of the given
+     * {@code type}, see {@link #findAll(Specification, Instant, Class)}.
+     *
+     * @param id must not be {@literal null}.
+     * @param type must not be {@literal null}.
+     * @return never {@literal null}.
+     */
+    <P> List<P> findRevisions(@NonNull ID id, @NonNull Class<P> type);
+
+    /**
+     * Returns the revisions of all entities with the given {@code ids} in a single query (per chunk of ids), numbered
+     * as by {@link #findRevisions(Object)}.
+     *
+     * @param ids must not be {@literal null} nor contain any {@literal null} values.
+     * @return the revisions per id; ids without any revision are omitted. Never {@literal null}.
+     */
+    Map<ID, Revisions<Integer, T>> findRevisions(@NonNull Iterable<ID> ids);
+
+    /**
+     * Returns the revisions of all entities with the given {@code ids} that were current at some point between
+     * {@code fromInstant} (inclusive) and {@code toInstant} (exclusive), numbered as by {@link #findRevisions(Object)}
+     * so that revisions before the window still count towards the revision numbers.
+     *
+     * @param ids must not be {@literal null} nor contain any {@literal null} values.
+     * @param fromInstant can be {@literal null} for no lower bound.
+     * @param toInstant can be {@literal null} for no upper bound.
+     * @return the revisions per id; ids without any revision in the window are omitted. Never {@literal null}.
+     */
+    Map<ID, Revisions<Integer, T>> findRevisions(@NonNull Iterable<ID> ids, Instant fromInstant, Instant toInstant);
+
+    /**
+     * Streams all instances of the type {@code T} at the given {@code asOfInstant}.
+     *
+     * @param asOfInstant must not be {@literal null}.
+     * @return all entities as a {@link Stream}.
+     * @see #streamAll(Specification, Instant)
+     */
+    Stream<T> streamAll(@NonNull Instant asOfInstant);
+
+    /**
+     * Streams all entities matching the given {@link Specification} at the given {@code asOfInstant}.
+     * <p>
+     * Unlike {@link #findAll(Specification, Instant)} the results are not materialised into a list: rows are read
+     * through a database cursor using the fetch size configured via
+     * {@link dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions#streamFetchSize()} and each entity is
+     * detached from the persistence context as it is emitted, so memory stays flat regardless of the table size.
+     * <p>
+     * As with any Spring Data stream query, this method must be called within a transaction and the returned
+     * {@link Stream} must be closed after use (e.g. in a try-with-resources block).
+     *
+     * @param spec can be {@literal null}.
+     * @param asOfInstant must not be {@literal null}.
+     * @return never {@literal null}.
+     */
+    Stream<T> streamAll(Specification<T> spec, @NonNull Instant asOfInstant);
+
+    /**
+     * Streams the changes that happened within {@code (fromInstant, toInstant]}, i.e. rows opened or closed in that
+     * interval, classified per {@link dev.claudio.jpatemporal.annotation.UniqueKey} as a
+     * {@link TemporalChange.Type#INSERT}, {@link TemporalChange.Type#UPDATE} or {@link TemporalChange.Type#DELETE}.
+     * Changes are ordered by {@link TemporalChange#getChangedAt()}.
+     * <p>
+     * This is meant for polling: consumers keep the {@code changedAt} of the last change they fully processed as a
+     * watermark and pass it as the next call's {@code fromInstant}. As rows are written as of the time they're saved
+     * rather than committed, {@code toInstant} should lag behind the current time by more than the longest writing
+     * transaction so that no change is missed.
+     * <p>
+     * As with {@link #streamAll(Specification, Instant)}, this method must be called within a transaction and the
+     * returned {@link Stream} must be closed after use.
+     *
+     * @param fromInstant exclusive start of the interval, must not be {@literal null}.
+     * @param toInstant inclusive end of the interval, must not be {@literal null} nor before {@code fromInstant}.
+     * @return never {@literal null}.
+     */
+    Stream<TemporalChange<T, ID>> findChanges(@NonNull Instant fromInstant, @NonNull Instant toInstant);
+
+    /**
+     * Streams the attributes that changed between each pair of consecutive revisions of the entity with the given
+     * {@code id}, oldest first. Revisions are read one at a time and pairs without any changed attribute are skipped.
+     * <p>
+     * As with {@link #streamAll(Specification, Instant)}, this method must be called within a transaction and the
+     * returned {@link Stream} must be closed after use.
+     *
+     * @param id must not be {@literal null}.
+     * @return never {@literal null}.
+     */
+    Stream<RevisionDiff<ID>> findRevisionDiffs(@NonNull ID id);
+
+    /**
+     * Streams the attributes changed by every update between {@code fromInstant} (exclusive) and {@code toInstant}
+     * (inclusive), i.e. of every row opened in that interval at the instant its predecessor was closed, ordered by
+     * {@link dev.claudio.jpatemporal.annotation.UniqueKey} and then by {@link RevisionDiff#getChangedAt()}. Rows are
+     * read one at a time and pairs without any changed attribute are skipped.
+     * <p>
+     * As with {@link #streamAll(Specification, Instant)}, this method must be called within a transaction and the
+     * returned {@link Stream} must be closed after use.
+     *
+     * @param fromInstant exclusive start of the interval, must not be {@literal null}.
+     * @param toInstant inclusive end of the interval, must not be {@literal null} nor before {@code fromInstant}.
+     * @return never {@literal null}.
+     */
+    Stream<RevisionDiff<ID>> findRevisionDiffs(@NonNull Instant fromInstant, @NonNull Instant toInstant);
+
+    /**
+     * Saves the given entity using the given {@link SaveMode} instead of the repository's default.
+     *
+     * @param entity must not be {@literal null}.
+     * @param saveMode must not be {@literal null}.
+     * @return the saved entity; will never be {@literal null}.
+     * @see #save(Object)
+     */
+    <S extends T> S save(@NonNull S entity, @NonNull SaveMode saveMode);
+
+    /**
+     * Saves all given entities using the given {@link SaveMode} instead of the repository's default.
+     *
+     * @param entities must not be {@literal null} nor must it contain {@literal null}.
+     * @param saveMode must not be {@literal null}.
+     * @return the saved entities; will never be {@literal null}.
+     * @see #saveAll(Iterable)
+     */
+    <S extends T> List<S> saveAll(@NonNull Iterable<S> entities, @NonNull SaveMode saveMode);
+
+    /**
+     * Deletes all entities currently matching the given {@link Specification} with a single bulk update closing their
+     * current rows. No entity is loaded.
+     *
+     * @param spec the {@link Specification} to match entities against. Can be {@literal null} to delete all entities.
+     * @return the number of entities deleted.
+     */
+    long delete(Specification<T> spec);
+
+    /**
+     * Updates all entities currently matching the given {@link Specification} by setting the given attributes, e.g.
+     * {@code update(inDepartment("Z"), Collections.singletonMap("job", "Y"))}. The matching current rows are closed and
+     * their successors are inserted and updated with bulk statements, no row being read into memory. Successors are
+     * written even when their attributes end up unchanged.
+     * <p>
+     * Inserting successors with bulk statements relies on {@code INSERT ... SELECT} statements, which are specific to
+     * Hibernate, and on a {@link dev.claudio.jpatemporal.annotation.TemporalId} generated by an identity column.
+     * Otherwise the matching rows are loaded and their successors are inserted as entities, as with
+     * {@link #saveAll(Iterable)}, so memory use grows with the number of matching rows. That's the case of
+     * {@link dev.claudio.jpatemporal.annotation.TemporalId}s generated by the persistence provider (e.g.
+     * {@link dev.claudio.jpatemporal.domain.SequencedTemporal}'s pooled sequence, which can't generate ids within an
+     * {@code INSERT ... SELECT}) and of entities with a {@link dev.claudio.jpatemporal.annotation.Fingerprint}, which
+     * must be recomputed.
+     *
+     * @param spec the {@link Specification} to match entities against. Can be {@literal null} to update all entities.
+     * @param assignments values by attribute name, must not be {@literal null} nor assign any of the
+     *                    {@link dev.claudio.jpatemporal.annotation.UniqueKey} or temporal attributes.
+     * @return the number of entities updated.
+     */
+    long update(Specification<T> spec, @NonNull Map<String, ?> assignments);
+
     /**
      * Returns the number of entities available at the given {@code asOfInstant}.
      *
@@ -85,4 +352,49 @@ public interface TemporalRepository<T, ID> extends JpaRepository<T, ID>, JpaSpec
      * @return the number of instances.
      */
     long count(Specification<T> spec, @NonNull Instant asOfInstant);
+
+    /**
+     * Returns the number of instances that the given {@link Specification} will return at each of the given
+     * {@code instants}, e.g. a daily headcount. Only the {@link dev.claudio.jpatemporal.annotation.FromDate} and
+     * {@link dev.claudio.jpatemporal.annotation.ToDate} of rows overlapping the instants are read, in a single query,
+     * rather than running {@link #count(Specification, Instant)} once per instant.
+     *
+     * @param spec the {@link Specification} to count instances for. Can be {@literal null}.
+     * @param instants must not be {@literal null} nor contain any {@literal null} values.
+     * @return the number of instances at each instant, ordered by instant; never {@literal null}.
+     */
+    NavigableMap<Instant, Long> countTimeline(Specification<T> spec, @NonNull Collection<Instant> instants);
+
+    /**
+     * Checks whether any entity matches the given {@link Specification} at the given {@code asOfInstant}. No entity is
+     * loaded, the query stops at the first matching row.
+     *
+     * @param spec the {@link Specification} to match entities against. Can be {@literal null}.
+     * @param asOfInstant must not be {@literal null}.
+     * @return {@literal true} if at least one entity matches.
+     */
+    boolean exists(Specification<T> spec, @NonNull Instant asOfInstant);
+
+    /**
+     * Returns which of the given {@code ids} exist at the given {@code asOfInstant}. Only the ids are read from the
+     * database, no entity is loaded.
+     *
+     * @param ids must not be {@literal null} nor contain any {@literal null} values.
+     * @param asOfInstant must not be {@literal null}.
+     * @return the subset of {@code ids} that exist; never {@literal null}.
+     */
+    Set<ID> existsAllById(@NonNull Iterable<ID> ids, @NonNull Instant asOfInstant);
+
+    /**
+     * Returns the ids (referenced by {@link dev.claudio.jpatemporal.annotation.UniqueKey}) of all entities matching the
+     * given {@link Specification} at the given {@code asOfInstant}. Only the ids are read from the database, no entity
+     * is loaded.
+     * <p>
+     * Note that the order of elements in the result is not guaranteed.
+     *
+     * @param spec can be {@literal null}.
+     * @param asOfInstant must not be {@literal null}.
+     * @return never {@literal null}.
+     */
+    List<ID> findIdsAsOf(Specification<T> spec, @NonNull Instant asOfInstant);
 }
@@ -1,5 +1,6 @@
 package dev.claudio.jpatemporal.repository.impl;
 
+import dev.claudio.jpatemporal.annotation.Fingerprint;
 import dev.claudio.jpatemporal.annotation.FromDate;
 import dev.claudio.jpatemporal.annotation.TemporalId;
 import dev.claudio.jpatemporal.annotation.ToDate;
@@ -8,14 +9,19 @@ import dev.claudio.jpatemporal.exception.JpaTemporalException;
 import lombok.Getter;
 import lombok.ToString;
 
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 @ToString
@@ -29,6 +35,10 @@ class AnnotatedEntitySupport {
     @Getter private final String temporalId;
     @Getter private final String fromDate;
     @Getter private final String toDate;
+    /** {@literal null} when the entity doesn't declare a {@link Fingerprint}. */
+    @Getter private final String fingerprint;
+    /** Whether the {@link TemporalId} is an identity column, as opposed to a value assigned by the persistence provider. */
+    @Getter private final boolean temporalIdGeneratedByDatabase;
 
     AnnotatedEntitySupport(final Class<?> domainClass) {
         validateNoRelationalAnnotations(domainClass);
@@ -36,12 +46,29 @@ class AnnotatedEntitySupport {
         this.temporalId = fetchColumnNameOrThrow(domainClass, TemporalId.class);
         this.fromDate = fetchColumnNameOrThrow(domainClass, FromDate.class);
         this.toDate = fetchColumnNameOrThrow(domainClass, ToDate.class);
+        this.fingerprint = ReflectionUtils.fetchAnnotatedColumnName(domainClass, Fingerprint.class).orElse(null);
+        this.temporalIdGeneratedByDatabase = isIdentity(domainClass);
+    }
+
+    public boolean hasFingerprint() {
+        return fingerprint != null;
     }
 
     public Set<String> getAllAttributes() {
-        return Collections.unmodifiableSet(new HashSet<>(
-                Arrays.asList(uniqueKey, temporalId, fromDate, toDate)
-        ));
+        final Set<String> attributes = new HashSet<>(Arrays.asList(uniqueKey, temporalId, fromDate, toDate));
+        if (hasFingerprint()) attributes.add(fingerprint);
+        return Collections.unmodifiableSet(attributes);
+    }
+
+    private static boolean isIdentity(final Class<?> domainClass) {
+        final List<AnnotatedElement> elements = new ArrayList<>(ReflectionUtils.fetchAnnotatedFields(domainClass, TemporalId.class));
+        elements.addAll(ReflectionUtils.fetchAnnotatedMethods(domainClass, TemporalId.class));
+        if (elements.isEmpty() && domainClass.getSuperclass() != null) {
+            return isIdentity(domainClass.getSuperclass());
+        }
+        return elements.stream()
+                .map(it -> it.getAnnotation(GeneratedValue.class))
+                .anyMatch(it -> it != null && it.strategy() == GenerationType.IDENTITY);
     }
 
     private void validateNoRelationalAnnotations(final Class<?> domainClass) {
@@ -0,0 +1,214 @@
+package dev.claudio.jpatemporal.repository.impl;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded least-recently-used cache of current rows keyed by unique key, with optional expiry.
+ * <p>
+ * Writes don't update the cache: {@link #markWritten(Set)} records the written keys against the current transaction,
+ * whose reads then bypass the cache for those keys, and the keys are invalidated once the transaction completes.
+ * Entries can only be cached by {@link #put(Object, Object, long)} if no invalidation happened since the
+ * {@link #transactionGeneration()} taken before reading them from the database, so a read racing with a committing
+ * transaction can't cache a row that's no longer current. Within a transaction the generation is the one taken on its
+ * first use of the cache: under repeatable read isolation the transaction keeps reading the rows as of its first read,
+ * even after later invalidations. Reads of other tables before that first use can still establish an older snapshot,
+ * which is why entries also need to expire.
+ */
+final class CurrentStateCache<ID, T> {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final int maxEntries;
+    private final long timeToLiveNanos;
+    private final UnaryOperator<T> copier;
+    private final Map<ID, Entry<T>> entries;
+    private final Object generationResourceKey = new Object();
+    private long generation;
+
+    /**
+     * @param timeToLive how long entries are kept after being cached, {@link Duration#ZERO} keeps them until evicted or
+     *                   invalidated.
+     */
+    CurrentStateCache(final int maxEntries, final Duration timeToLive, final UnaryOperator<T> copier) {
+        this.maxEntries = maxEntries;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.copier = copier;
+        this.entries = new LinkedHashMap<ID, Entry<T>>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<ID, Entry<T>> eldest) {
+                return size() > CurrentStateCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the current generation, to be taken before reading the rows passed to {@link #put(Object, Object, long)}.
+     */
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * @return the generation to be taken before reading the rows passed to {@link #put(Object, Object, long)}: the
+     * current generation outside of transactions, otherwise the one current when the transaction first took it.
+     */
+    long transactionGeneration() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return generation();
+        final Long bound = (Long) TransactionSynchronizationManager.getResource(generationResourceKey);
+        if (bound != null) return bound;
+        final long current = generation();
+        TransactionSynchronizationManager.bindResource(generationResourceKey, current);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(final int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(generationResourceKey);
+            }
+        });
+        return current;
+    }
+
+    /**
+     * @return a copy of {@code entity}, as returned for cached entries.
+     */
+    T copy(final T entity) {
+        return copier.apply(entity);
+    }
+
+    /**
+     * @return {@code null} on a cache miss, otherwise the cached row of {@code id} (or its absence).
+     */
+    synchronized Entry<T> get(final ID id) {
+        final Entry<T> entry = entries.get(id);
+        if (entry != null && entry.isExpired()) {
+            entries.remove(id);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Caches a copy of {@code entity} (or its absence when {@code null}) as the current row of {@code id}, unless the
+     * cache was invalidated since {@code readGeneration}.
+     */
+    synchronized void put(final ID id, final T entity, final long readGeneration) {
+        if (readGeneration != generation) return;
+        final long expiresAt = timeToLiveNanos > 0 ? System.nanoTime() + timeToLiveNanos : 0;
+        entries.put(id, new Entry<>(Optional.ofNullable(entity).map(copier), expiresAt, copier));
+    }
+
+    /**
+     * Records that the rows of {@code ids} ({@code null} meaning all rows) are being written. Within a transaction the
+     * keys are invalidated on completion, otherwise straight away.
+     */
+    void markWritten(final Set<ID> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(ids);
+            return;
+        }
+        Invalidation invalidation = currentInvalidation();
+        if (invalidation == null) {
+            invalidation = new Invalidation();
+            TransactionSynchronizationManager.registerSynchronization(invalidation);
+        }
+        invalidation.add(ids);
+    }
+
+    /**
+     * @return whether {@code id} was written in the current transaction, in which case the cache must be bypassed.
+     */
+    boolean isWrittenInTransaction(final ID id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return false;
+        final Invalidation invalidation = currentInvalidation();
+        return invalidation != null && invalidation.contains(id);
+    }
+
+    synchronized void invalidate(final Set<ID> ids) {
+        generation++;
+        if (ids == null) {
+            entries.clear();
+        } else {
+            ids.forEach(entries::remove);
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Invalidation currentInvalidation() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof CurrentStateCache.Invalidation && ((Invalidation) synchronization).isFor(this)) {
+                return (Invalidation) synchronization;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A cached current row, {@link #entity()} returning a new copy on every call.
+     */
+    static final class Entry<T> {
+        private final Optional<T> entity;
+        private final long expiresAt;
+        private final UnaryOperator<T> copier;
+
+        Entry(final Optional<T> entity, final long expiresAt, final UnaryOperator<T> copier) {
+            this.entity = entity;
+            this.expiresAt = expiresAt;
+            this.copier = copier;
+        }
+
+        Optional<T> entity() {
+            return entity.map(copier);
+        }
+
+        boolean exists() {
+            return entity.isPresent();
+        }
+
+        private boolean isExpired() {
+            return expiresAt != 0 && System.nanoTime() - expiresAt > 0;
+        }
+    }
+
+    /**
+     * Keys written by a transaction, invalidated once it completes whether committed or rolled back.
+     */
+    private final class Invalidation implements TransactionSynchronization {
+        private final Set<ID> writtenIds = new HashSet<>();
+        private boolean allWritten;
+
+        void add(final Set<ID> ids) {
+            if (ids == null) {
+                allWritten = true;
+            } else {
+                writtenIds.addAll(ids);
+            }
+        }
+
+        boolean contains(final ID id) {
+            return allWritten || writtenIds.contains(id);
+        }
+
+        boolean isFor(final CurrentStateCache<?, ?> cache) {
+            return cache == CurrentStateCache.this;
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            invalidate(allWritten ? null : writtenIds);
+        }
+    }
+}
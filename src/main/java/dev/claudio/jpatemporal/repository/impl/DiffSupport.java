@@ -0,0 +1,67 @@
+package dev.claudio.jpatemporal.repository.impl;
+
+import dev.claudio.jpatemporal.repository.RevisionDiff;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiPredicate;
+
+/**
+ * Computes the attributes that differ between two entities of type {@code T}. Accessors and the equality used for each
+ * attribute are resolved once on construction, attributes being compared in attribute name order.
+ */
+class DiffSupport<T> {
+    private final List<String> attributes;
+    private final List<EntityAccessSupport.Accessor<T>> accessors;
+    private final List<BiPredicate<Object, Object>> equalities;
+
+    /**
+     * @param attributeTypes the Java type of each attribute to compare, by attribute name.
+     */
+    DiffSupport(final Class<T> domainClass, final Map<String, Class<?>> attributeTypes) {
+        final List<String> sortedAttributes = new ArrayList<>(attributeTypes.keySet());
+        Collections.sort(sortedAttributes);
+        final EntityAccessSupport<T> entityAccessSupport = new EntityAccessSupport<>(domainClass, attributeTypes.keySet());
+        this.attributes = Collections.unmodifiableList(sortedAttributes);
+        this.accessors = new ArrayList<>(sortedAttributes.size());
+        this.equalities = new ArrayList<>(sortedAttributes.size());
+        for (String attribute : sortedAttributes) {
+            accessors.add(entityAccessSupport.accessor(attribute));
+            equalities.add(equality(attributeTypes.get(attribute)));
+        }
+    }
+
+    /**
+     * @return the attributes whose values differ between {@code previous} and {@code current}, in attribute name order.
+     */
+    public Map<String, RevisionDiff.Change> diff(final T previous, final T current) {
+        final Map<String, RevisionDiff.Change> changes = new LinkedHashMap<>();
+        for (int i = 0; i < attributes.size(); i++) {
+            final Object oldValue = accessors.get(i).get(previous);
+            final Object newValue = accessors.get(i).get(current);
+            if (!equalities.get(i).test(oldValue, newValue)) {
+                changes.put(attributes.get(i), new RevisionDiff.Change(oldValue, newValue));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * {@link BigDecimal}s are compared ignoring their scale, which databases don't necessarily preserve, and arrays
+     * (e.g. {@code byte[]} columns) by content.
+     */
+    private static BiPredicate<Object, Object> equality(final Class<?> type) {
+        if (BigDecimal.class.isAssignableFrom(type)) {
+            return (a, b) -> a == null || b == null ? Objects.equals(a, b) : ((BigDecimal) a).compareTo((BigDecimal) b) == 0;
+        }
+        if (type.isArray()) {
+            return Objects::deepEquals;
+        }
+        return Objects::equals;
+    }
+}
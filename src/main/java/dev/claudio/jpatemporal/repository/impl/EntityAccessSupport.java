@@ -2,12 +2,19 @@ package dev.claudio.jpatemporal.repository.impl;
 
 import dev.claudio.jpatemporal.exception.JpaTemporalException;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.springframework.util.ClassUtils;
 
 import java.beans.FeatureDescriptor;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -17,54 +24,83 @@ import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Reads and writes attributes of entities of type {@code T} without going through reflection on every call.
+ * <p>
+ * Getters and setters are bound once into {@link Function}/{@link BiConsumer} instances generated by
+ * {@link LambdaMetafactory} which the JIT can inline like regular method calls. Public fields, and methods that can't be
+ * bound that way (e.g. non-public classes or classes not visible from this library's class loader), fall back to
+ * {@link MethodHandle}s. Either way exceptions thrown while accessing an attribute (e.g. setting {@literal null} on a
+ * primitive attribute) surface as {@link JpaTemporalException}s. Callers on hot paths should resolve an {@link Accessor} once via {@link #accessor(String)}
+ * rather than looking attributes up by name on each call.
+ */
 @SuppressFBWarnings("THROWS_METHOD_THROWS_CLAUSE_BASIC_EXCEPTION")
 class EntityAccessSupport<T> {
-    private final Map<String, Function<T, Object>> getters = new HashMap<>();
-    private final Map<String, BiConsumer<T, Object>> setters = new HashMap<>();
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final Map<String, Accessor<T>> accessors = new HashMap<>();
 
     EntityAccessSupport(final Class<T> domainClass, final Set<String> fieldsToAccess) {
         try {
             final Map<String, PropertyDescriptor> descriptorMap = Arrays.stream(Introspector.getBeanInfo(domainClass, Object.class).getPropertyDescriptors())
                     .collect(Collectors.toMap(FeatureDescriptor::getName, it -> it));
             for (String it : fieldsToAccess) {
-                getters.put(it, createGetterFunction(it, descriptorMap.get(it), domainClass));
-                setters.put(it, createSetterFunction(it, descriptorMap.get(it), domainClass));
+                accessors.put(it, new Accessor<>(
+                        createGetterFunction(it, descriptorMap.get(it), domainClass),
+                        createSetterFunction(it, descriptorMap.get(it), domainClass)
+                ));
             }
         } catch (IntrospectionException | IllegalAccessException e) {
             throw new JpaTemporalException("Could not correctly identify public properties or getters/setters for " + domainClass, e);
         }
     }
 
+    /**
+     * @return the {@link Accessor} for {@code attribute}, to be kept by callers that access it repeatedly.
+     * @throws JpaTemporalException when {@code attribute} wasn't declared when constructing this class.
+     */
+    public Accessor<T> accessor(final String attribute) {
+        final Accessor<T> accessor = accessors.get(attribute);
+        if (accessor == null) {
+            throw new JpaTemporalException(attribute + " not declared for this entity");
+        }
+        return accessor;
+    }
+
     public Object getAttribute(final String attribute, final T entity) {
-        return getters.getOrDefault(attribute, (t) -> {
+        final Accessor<T> accessor = accessors.get(attribute);
+        if (accessor == null) {
             throw new JpaTemporalException(attribute + " not declared for entity " + entity.getClass().getSimpleName());
-        }).apply(entity);
+        }
+        return accessor.get(entity);
     }
 
     public void setAttribute(final String attribute, final T entity, final Object value) {
-        setters.getOrDefault(attribute, (t, o) -> {
+        final Accessor<T> accessor = accessors.get(attribute);
+        if (accessor == null) {
             throw new JpaTemporalException(attribute + " not declared for entity " + entity.getClass().getSimpleName());
-        }).accept(entity, value);
+        }
+        accessor.set(entity, value);
     }
 
-    private ThrowingFunction<T, Object> createGetterFunction(final String name, final PropertyDescriptor it, final Class<T> domainClass) throws IllegalAccessException {
+    private Function<T, Object> createGetterFunction(final String name, final PropertyDescriptor it, final Class<T> domainClass) throws IllegalAccessException {
         if (it != null && it.getReadMethod() != null) {
-            return (entity) -> it.getReadMethod().invoke(entity);
+            return methodGetter(it.getReadMethod());
         }
         final Field field = ReflectionUtils.fetchField(name, domainClass)
                 .filter(this::isFieldAccessible)
                 .orElseThrow(() -> new IllegalAccessException(String.format("Could not determine a getter or public field on class %s for accessing field %s", domainClass.getName(), name)));
-        return field::get;
+        return handleGetter(LOOKUP.unreflectGetter(field));
     }
 
-    private ThrowingConsumer<T, Object> createSetterFunction(final String name, final PropertyDescriptor it, final Class<T> domainClass) throws IllegalAccessException {
+    private BiConsumer<T, Object> createSetterFunction(final String name, final PropertyDescriptor it, final Class<T> domainClass) throws IllegalAccessException {
         if (it != null && it.getWriteMethod() != null) {
-            return (entity, value) -> it.getWriteMethod().invoke(entity, value);
+            return methodSetter(it.getWriteMethod());
         }
         final Field field = ReflectionUtils.fetchField(name, domainClass)
                 .filter(this::isFieldAccessible)
                 .orElseThrow(() -> new IllegalAccessException(String.format("Could not determine a setter or public field on class %s for accessing field %s", domainClass.getName(), name)));
-        return field::set;
+        return handleSetter(LOOKUP.unreflectSetter(field));
     }
 
     private boolean isFieldAccessible(final Field field) {
@@ -72,33 +108,123 @@ class EntityAccessSupport<T> {
         return Modifier.isPublic(modifier) && !Modifier.isStatic(modifier) && !Modifier.isFinal(modifier);
     }
 
-    @FunctionalInterface
-    private interface ThrowingFunction<T, U> extends Function<T, U> {
+    @SuppressWarnings({"unchecked", "rawtypes", "PMD.AvoidCatchingThrowable"})
+    private Function<T, Object> methodGetter(final Method method) throws IllegalAccessException {
+        final MethodHandle handle = LOOKUP.unreflect(method);
+        if (isBindable(method)) {
+            try {
+                final CallSite callSite = LambdaMetafactory.metafactory(
+                        LOOKUP,
+                        "apply",
+                        MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class),
+                        handle,
+                        MethodType.methodType(method.getReturnType(), method.getDeclaringClass()).wrap()
+                );
+                return wrapGetter((Function<T, Object>) (Function) callSite.getTarget().invokeExact());
+            } catch (Throwable e) {
+                // Fall back to invoking the method handle directly
+            }
+        }
+        return handleGetter(handle);
+    }
 
-        @Override
-        default U apply(final T elem) {
+    @SuppressWarnings({"unchecked", "rawtypes", "PMD.AvoidCatchingThrowable"})
+    private BiConsumer<T, Object> methodSetter(final Method method) throws IllegalAccessException {
+        final MethodHandle handle = LOOKUP.unreflect(method);
+        if (isBindable(method)) {
             try {
-                return applyThrows(elem);
-            } catch (final Exception e) {
-                throw new JpaTemporalException(String.format("Could not apply '%s'", elem), e);
+                final CallSite callSite = LambdaMetafactory.metafactory(
+                        LOOKUP,
+                        "accept",
+                        MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class),
+                        handle,
+                        MethodType.methodType(void.class, method.getDeclaringClass(), MethodType.methodType(method.getParameterTypes()[0]).wrap().returnType())
+                );
+                return wrapSetter((BiConsumer<T, Object>) (BiConsumer) callSite.getTarget().invokeExact());
+            } catch (Throwable e) {
+                // Fall back to invoking the method handle directly
             }
         }
+        return handleSetter(handle);
+    }
+
+    /**
+     * Lambdas generated by {@link LambdaMetafactory} are defined alongside this class so every type they reference
+     * needs to be public and visible from this library's class loader.
+     */
+    private static boolean isBindable(final Method method) {
+        final ClassLoader classLoader = EntityAccessSupport.class.getClassLoader();
+        return Modifier.isPublic(method.getModifiers())
+                && Modifier.isPublic(method.getDeclaringClass().getModifiers())
+                && ClassUtils.isVisible(method.getDeclaringClass(), classLoader)
+                && ClassUtils.isVisible(method.getReturnType(), classLoader)
+                && Arrays.stream(method.getParameterTypes()).allMatch(it -> ClassUtils.isVisible(it, classLoader));
+    }
+
+    private static <T> Function<T, Object> wrapGetter(final Function<T, Object> getter) {
+        return entity -> {
+            try {
+                return getter.apply(entity);
+            } catch (RuntimeException e) {
+                throw new JpaTemporalException(String.format("Could not apply '%s'", entity), e);
+            }
+        };
+    }
 
-        U applyThrows(T elem) throws Exception;
+    private static <T> BiConsumer<T, Object> wrapSetter(final BiConsumer<T, Object> setter) {
+        return (entity, value) -> {
+            try {
+                setter.accept(entity, value);
+            } catch (RuntimeException e) {
+                throw new JpaTemporalException(String.format("Could not accept '%s' with '%s'", entity, value), e);
+            }
+        };
     }
 
-    @FunctionalInterface
-    private interface ThrowingConsumer<T, U> extends BiConsumer<T, U> {
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    private static <T> Function<T, Object> handleGetter(final MethodHandle handle) {
+        final MethodHandle genericHandle = handle.asType(MethodType.methodType(Object.class, Object.class));
+        return entity -> {
+            try {
+                return (Object) genericHandle.invokeExact((Object) entity);
+            } catch (Throwable e) {
+                throw new JpaTemporalException(String.format("Could not apply '%s'", entity), e);
+            }
+        };
+    }
 
-        @Override
-        default void accept(final T elem, final U elem2) {
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    private static <T> BiConsumer<T, Object> handleSetter(final MethodHandle handle) {
+        final MethodHandle genericHandle = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return (entity, value) -> {
             try {
-                acceptThrows(elem, elem2);
-            } catch (final Exception e) {
-                throw new JpaTemporalException(String.format("Could not accept '%s' with '%s'", elem, elem2), e);
+                genericHandle.invokeExact((Object) entity, value);
+            } catch (Throwable e) {
+                throw new JpaTemporalException(String.format("Could not accept '%s' with '%s'", entity, value), e);
             }
+        };
+    }
+
+    /**
+     * Getter and setter of a single attribute, resolved once by {@link #accessor(String)}.
+     */
+    static final class Accessor<T> {
+        private final Function<T, Object> getter;
+        private final BiConsumer<T, Object> setter;
+
+        Accessor(final Function<T, Object> getter, final BiConsumer<T, Object> setter) {
+            this.getter = getter;
+            this.setter = setter;
         }
 
-        void acceptThrows(T elem, U elem2) throws Exception;
+        public Object get(final T entity) {
+            return getter.apply(entity);
+        }
+
+        public void set(final T entity, final Object value) {
+            setter.accept(entity, value);
+        }
     }
 }
@@ -0,0 +1,126 @@
+package dev.claudio.jpatemporal.repository.impl;
+
+import dev.claudio.jpatemporal.annotation.Fingerprint;
+import dev.claudio.jpatemporal.exception.JpaTemporalException;
+import org.springframework.util.ClassUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Computes the {@link Fingerprint} of an entity: a Base64 encoded SHA-256 hash of the entity's versioned attributes,
+ * taken in attribute name order.
+ * <p>
+ * Each attribute is hashed through a canonical encoding of its type so that values that are equal once stored hash the
+ * same, e.g. {@link BigDecimal}s regardless of their scale, arrays by content and instants to the microsecond. Types
+ * without such an encoding (e.g. embeddables) are rejected on construction rather than hashed through a
+ * {@code toString()} that may not reflect their content.
+ */
+class FingerprintSupport<T> {
+    private static final String ALGORITHM = "SHA-256";
+    private static final String NULL_VALUE = "\u0000";
+    private static final List<Class<?>> PLAIN_TYPES = Arrays.asList(String.class, Character.class, Boolean.class,
+            Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class, BigInteger.class, UUID.class,
+            LocalDate.class, LocalTime.class, LocalDateTime.class, Duration.class);
+
+    private final List<String> versionedAttributes;
+    private final List<EntityAccessSupport.Accessor<T>> accessors;
+    private final List<Function<Object, String>> encoders;
+
+    /**
+     * @param attributeTypes the Java type of each versioned attribute, by attribute name.
+     * @throws JpaTemporalException when an attribute is of a type that can't be fingerprinted.
+     */
+    FingerprintSupport(final Map<String, Class<?>> attributeTypes, final EntityAccessSupport<T> entityAccessSupport) {
+        final List<String> sortedAttributes = new ArrayList<>(attributeTypes.keySet());
+        Collections.sort(sortedAttributes);
+        this.versionedAttributes = Collections.unmodifiableList(sortedAttributes);
+        this.accessors = new ArrayList<>(sortedAttributes.size());
+        this.encoders = new ArrayList<>(sortedAttributes.size());
+        for (String attribute : sortedAttributes) {
+            accessors.add(entityAccessSupport.accessor(attribute));
+            encoders.add(encoder(attribute, attributeTypes.get(attribute)));
+        }
+    }
+
+    public String fingerprint(final T entity) {
+        final MessageDigest digest = newDigest();
+        for (int i = 0; i < versionedAttributes.size(); i++) {
+            final Object value = accessors.get(i).get(entity);
+            // Length prefixes keep ("ab", "c") and ("a", "bc") from producing the same input
+            update(digest, versionedAttributes.get(i));
+            update(digest, value == null ? NULL_VALUE : encoders.get(i).apply(value));
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    private static Function<Object, String> encoder(final String attribute, final Class<?> attributeType) {
+        final Class<?> type = ClassUtils.resolvePrimitiveIfNecessary(attributeType);
+        if (PLAIN_TYPES.contains(type) || type.isEnum()) {
+            return String::valueOf;
+        }
+        if (BigDecimal.class.equals(type)) {
+            return it -> ((BigDecimal) it).signum() == 0 ? "0" : ((BigDecimal) it).stripTrailingZeros().toPlainString();
+        }
+        if (Instant.class.equals(type)) {
+            return it -> toMicros((Instant) it);
+        }
+        if (OffsetDateTime.class.equals(type)) {
+            return it -> toMicros(((OffsetDateTime) it).toInstant());
+        }
+        if (ZonedDateTime.class.equals(type)) {
+            return it -> toMicros(((ZonedDateTime) it).toInstant());
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            return it -> it instanceof Timestamp ? toMicros(((Timestamp) it).toInstant()) : Long.toString(((Date) it).getTime());
+        }
+        if (byte[].class.equals(type)) {
+            return it -> Base64.getEncoder().encodeToString((byte[]) it);
+        }
+        if (type.isArray() && type.getComponentType().isPrimitive()) {
+            return it -> Arrays.deepToString(new Object[]{it});
+        }
+        throw new JpaTemporalException(String.format("Attribute %s of type %s can't be fingerprinted, see %s", attribute,
+                attributeType.getName(), Fingerprint.class.getName()));
+    }
+
+    private static String toMicros(final Instant instant) {
+        return Long.toString(ChronoUnit.MICROS.between(Instant.EPOCH, instant));
+    }
+
+    private static void update(final MessageDigest digest, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new JpaTemporalException(ALGORITHM + " is not available for computing fingerprints", e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package dev.claudio.jpatemporal.repository.impl;
+
+import java.lang.reflect.Array;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded least-recently-used cache of entities as of instants older than a safety horizon.
+ * <p>
+ * Rows are only ever inserted or closed as of the current time, never changed in the past, so the row of a unique key
+ * as of an instant safely in the past (including the absence of one) can be cached indefinitely. The safety horizon
+ * covers transactions still in flight at the time of the lookup. Entries hold copies of the entities and every hit
+ * returns a new copy so that callers can't change cached state.
+ */
+final class HistoryCache<ID, T> {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final int maxEntries;
+    private final Duration safetyHorizon;
+    private final UnaryOperator<T> copier;
+    private final Map<Key<ID>, Optional<T>> entries;
+
+    HistoryCache(final int maxEntries, final Duration safetyHorizon, final UnaryOperator<T> copier) {
+        this.maxEntries = maxEntries;
+        this.safetyHorizon = safetyHorizon;
+        this.copier = copier;
+        this.entries = new LinkedHashMap<Key<ID>, Optional<T>>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key<ID>, Optional<T>> eldest) {
+                return size() > HistoryCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return whether lookups as of {@code asOfInstant} can be cached, i.e. it's older than the safety horizon.
+     */
+    boolean isCacheable(final Instant asOfInstant) {
+        return asOfInstant != null && asOfInstant.isBefore(Instant.now().minus(safetyHorizon));
+    }
+
+    /**
+     * @return the cache hits among {@code ids} keyed by id, each being a copy of the cached entity or
+     * {@link Optional#empty()} when the unique key had no row as of {@code asOfInstant}. Ids missing from the result
+     * weren't cached.
+     */
+    synchronized Map<ID, Optional<T>> getAll(final Iterable<ID> ids, final Instant asOfInstant) {
+        final Map<ID, Optional<T>> hits = new HashMap<>();
+        for (ID id : ids) {
+            final Optional<T> entity = entries.get(new Key<>(id, asOfInstant));
+            if (entity != null) hits.put(id, entity.map(copier));
+        }
+        return hits;
+    }
+
+    /**
+     * Caches a copy of {@code entity} (or its absence when {@code null}) as the row of {@code id} as of
+     * {@code asOfInstant}.
+     */
+    synchronized void put(final ID id, final Instant asOfInstant, final T entity) {
+        entries.put(new Key<>(id, asOfInstant), Optional.ofNullable(entity).map(copier));
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @param valueCopiers how to copy the value of the attribute of the accessor at the same position, so that copies
+     *                     don't share mutable values with the cached entities.
+     */
+    static <T> UnaryOperator<T> copier(final Supplier<T> instantiator, final List<EntityAccessSupport.Accessor<T>> accessors,
+                                       final List<UnaryOperator<Object>> valueCopiers) {
+        return entity -> {
+            final T copy = instantiator.get();
+            for (int i = 0; i < accessors.size(); i++) {
+                final Object value = accessors.get(i).get(entity);
+                accessors.get(i).set(copy, value == null ? null : valueCopiers.get(i).apply(value));
+            }
+            return copy;
+        };
+    }
+
+    /**
+     * @return a function copying values of {@code type} when they're mutable (arrays, {@link Date}s and
+     * {@link Calendar}s), otherwise returning them as they are.
+     */
+    static UnaryOperator<Object> valueCopier(final Class<?> type) {
+        if (type.isArray()) {
+            return value -> {
+                final int length = Array.getLength(value);
+                final Object copy = Array.newInstance(type.getComponentType(), length);
+                System.arraycopy(value, 0, copy, 0, length);
+                return copy;
+            };
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            return value -> ((Date) value).clone();
+        }
+        if (Calendar.class.isAssignableFrom(type)) {
+            return value -> ((Calendar) value).clone();
+        }
+        return UnaryOperator.identity();
+    }
+
+    private static final class Key<ID> {
+        private final ID id;
+        private final Instant asOfInstant;
+
+        Key(final ID id, final Instant asOfInstant) {
+            this.id = id;
+            this.asOfInstant = asOfInstant;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            final Key<?> key = (Key<?>) o;
+            return Objects.equals(id, key.id) && Objects.equals(asOfInstant, key.asOfInstant);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, asOfInstant);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package dev.claudio.jpatemporal.repository.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Splits values bound to an {@code IN} list into chunks that stay within a maximum number of bind parameters and pads
+ * each chunk to the next power of two (capped by the chunk size). Padding is done by repeating the chunk's last value,
+ * which doesn't change the result of an {@code IN} predicate but limits the number of distinct SQL statements (and
+ * hence query plans) to one per padded size.
+ */
+final class InListPartitioner {
+    private InListPartitioner() { }
+
+    /**
+     * @param values the values to be bound, duplicates are removed.
+     * @param maxParameters maximum number of bind parameters per {@code IN} list.
+     * @param parametersPerValue number of bind parameters each value expands to (e.g. columns of an embedded key).
+     * @return padded chunks of {@code values}, empty when {@code values} is empty.
+     */
+    static <V> List<List<V>> partition(final Iterable<V> values, final int maxParameters, final int parametersPerValue) {
+        final List<V> distinctValues = StreamSupport.stream(values.spliterator(), false)
+                .distinct()
+                .collect(Collectors.toList());
+        if (distinctValues.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final int chunkSize = Math.max(1, maxParameters / Math.max(1, parametersPerValue));
+        final List<List<V>> chunks = new ArrayList<>((distinctValues.size() + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < distinctValues.size(); from += chunkSize) {
+            final List<V> chunk = new ArrayList<>(distinctValues.subList(from, Math.min(from + chunkSize, distinctValues.size())));
+            final V lastValue = chunk.get(chunk.size() - 1);
+            final int paddedSize = paddedSize(chunk.size(), chunkSize);
+            while (chunk.size() < paddedSize) {
+                chunk.add(lastValue);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * @return the smallest power of two that is greater than or equal to {@code size}, capped by {@code maxSize}.
+     */
+    static int paddedSize(final int size, final int maxSize) {
+        final int highestOneBit = Integer.highestOneBit(size);
+        final int powerOfTwo = highestOneBit == size ? size : highestOneBit << 1;
+        return Math.min(powerOfTwo, maxSize);
+    }
+}
@@ -0,0 +1,355 @@
+package dev.claudio.jpatemporal.repository.impl;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory interval index of all rows of a temporal table, answering as-of lookups without querying the database.
+ * <p>
+ * The rows of each unique key are held sorted by {@link dev.claudio.jpatemporal.annotation.FromDate} along with their
+ * dates as epoch microseconds, rows of a unique key never overlapping, so a lookup is a binary search. Counts as of an
+ * instant are answered from the sorted dates of all rows: rows started minus rows ended by that instant.
+ * <p>
+ * The index is loaded in full on first use and then refreshed, at most once per refresh interval, from the rows whose
+ * dates are past the previous refresh's watermark. As rows are written as of the time they're saved rather than
+ * committed, the watermark is moved back by a lag that needs to exceed the longest writing transaction. Rows re-read
+ * within that lag are only merged when their temporal id or dates differ from the indexed ones, committed rows being
+ * otherwise immutable, so a refresh without changes keeps the current snapshot as is. Refreshes read
+ * through their own {@link Loader} so that they only ever see committed rows. Reads within a transaction that wrote to
+ * the repository should bypass the index, see {@link #isWrittenInTransaction()}, and any write makes the next read
+ * refresh the index. Lookups return copies of the indexed entities so that callers can't change indexed state.
+ */
+final class ResidentIndex<ID, T> {
+    private final Loader<ID, T> loader;
+    private final UnaryOperator<T> copier;
+    private final long refreshIntervalNanos;
+    private final Duration lag;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile Snapshot<ID, T> snapshot;
+    private volatile boolean refreshDue;
+    private volatile long lastRefreshNanos;
+    private Instant watermark;
+
+    ResidentIndex(final Loader<ID, T> loader, final UnaryOperator<T> copier, final Duration refreshInterval, final Duration lag) {
+        this.loader = loader;
+        this.copier = copier;
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        this.lag = lag;
+    }
+
+    /**
+     * @return copies of the rows of {@code ids} as of {@code asOfInstant}, ids without a row being omitted.
+     */
+    List<T> findAllById(final Iterable<ID> ids, final Instant asOfInstant) {
+        final Snapshot<ID, T> current = refreshedSnapshot();
+        final long asOf = toMicros(asOfInstant);
+        final List<T> entities = new ArrayList<>();
+        for (ID id : ids) {
+            final KeyRows<T> keyRows = current.rowsById.get(id);
+            final T entity = keyRows == null ? null : keyRows.asOf(asOf);
+            if (entity != null) entities.add(copier.apply(entity));
+        }
+        return entities;
+    }
+
+    /**
+     * @return copies of all rows as of {@code asOfInstant}.
+     */
+    List<T> findAll(final Instant asOfInstant) {
+        final Snapshot<ID, T> current = refreshedSnapshot();
+        final long asOf = toMicros(asOfInstant);
+        final List<T> entities = new ArrayList<>();
+        for (KeyRows<T> keyRows : current.rowsById.values()) {
+            final T entity = keyRows.asOf(asOf);
+            if (entity != null) entities.add(copier.apply(entity));
+        }
+        return entities;
+    }
+
+    /**
+     * @return the number of rows as of {@code asOfInstant}.
+     */
+    long count(final Instant asOfInstant) {
+        final Snapshot<ID, T> current = refreshedSnapshot();
+        final long asOf = toMicros(asOfInstant);
+        return countUpTo(current.fromDates, asOf) - countUpTo(current.toDates, asOf);
+    }
+
+    /**
+     * Records a write to the repository: reads within the current transaction, if any, then bypass the index and the
+     * next read once it completes refreshes it.
+     */
+    void markWritten() {
+        refreshDue = true;
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || isWrittenInTransaction()) return;
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(final int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ResidentIndex.this);
+                refreshDue = true;
+            }
+        });
+    }
+
+    /**
+     * @return whether the current transaction wrote to the repository, its reads then needing to go to the database.
+     */
+    boolean isWrittenInTransaction() {
+        return TransactionSynchronizationManager.hasResource(this);
+    }
+
+    /**
+     * @return the number of indexed rows.
+     */
+    int size() {
+        return refreshedSnapshot().fromDates.length;
+    }
+
+    /**
+     * @return the current snapshot, refreshed first if it's due. Only the first load makes readers wait, later readers
+     * use the previous snapshot while another thread refreshes it.
+     */
+    private Snapshot<ID, T> refreshedSnapshot() {
+        final Snapshot<ID, T> current = snapshot;
+        if (current != null && !refreshDue && System.nanoTime() - lastRefreshNanos < refreshIntervalNanos) {
+            return current;
+        }
+        if (current == null) {
+            refreshLock.lock();
+        } else if (!refreshLock.tryLock()) {
+            return current;
+        }
+        try {
+            // Another thread may have refreshed the snapshot while this one was waiting for the first load
+            if (snapshot == null || refreshDue || System.nanoTime() - lastRefreshNanos >= refreshIntervalNanos) refresh();
+        } finally {
+            refreshLock.unlock();
+        }
+        return snapshot;
+    }
+
+    private void refresh() {
+        final Snapshot<ID, T> previous = snapshot;
+        final long refreshNanos = System.nanoTime();
+        final Instant refreshStart = Instant.now();
+        // Cleared before reading so that writes completing during the refresh trigger another one
+        refreshDue = false;
+        final Collection<Row<ID, T>> readRows = loader.load(previous == null ? null : watermark.minus(lag));
+        snapshot = previous == null ? Snapshot.of(readRows) : previous.merge(readRows);
+        watermark = refreshStart;
+        lastRefreshNanos = refreshNanos;
+    }
+
+    /**
+     * @return the number of values of {@code sortedValues} less than or equal to {@code value}.
+     */
+    private static int countUpTo(final long[] sortedValues, final long value) {
+        int low = 0;
+        int high = sortedValues.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (sortedValues[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static long toMicros(final Instant instant) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+
+    /**
+     * Reads the committed rows of the repository.
+     */
+    @FunctionalInterface
+    interface Loader<ID, T> {
+        /**
+         * @param since {@literal null} to read all rows, otherwise only the rows whose dates are at or after it (other
+         *              than the maximum to date of current rows).
+         */
+        Collection<Row<ID, T>> load(Instant since);
+    }
+
+    /**
+     * A row read by a {@link Loader}, along with the attributes the index is built on.
+     */
+    static final class Row<ID, T> {
+        private final ID id;
+        private final Object temporalId;
+        private final long fromDate;
+        private final long toDate;
+        private final T entity;
+
+        Row(final ID id, final Object temporalId, final Instant fromDate, final Instant toDate, final T entity) {
+            this(id, temporalId, toMicros(fromDate), toMicros(toDate), entity);
+        }
+
+        private Row(final ID id, final Object temporalId, final long fromDate, final long toDate, final T entity) {
+            this.id = id;
+            this.temporalId = temporalId;
+            this.fromDate = fromDate;
+            this.toDate = toDate;
+            this.entity = entity;
+        }
+    }
+
+    /**
+     * The rows of a single unique key sorted by from date.
+     */
+    private static final class KeyRows<T> {
+        private final long[] fromDates;
+        private final long[] toDates;
+        private final Object[] temporalIds;
+        private final List<T> entities;
+
+        KeyRows(final List<? extends Row<?, T>> rows) {
+            final List<Row<?, T>> sortedRows = new ArrayList<>(rows);
+            sortedRows.sort(Comparator.comparingLong(it -> it.fromDate));
+            this.fromDates = new long[sortedRows.size()];
+            this.toDates = new long[sortedRows.size()];
+            this.temporalIds = new Object[sortedRows.size()];
+            final List<T> sortedEntities = new ArrayList<>(sortedRows.size());
+            for (int i = 0; i < sortedRows.size(); i++) {
+                fromDates[i] = sortedRows.get(i).fromDate;
+                toDates[i] = sortedRows.get(i).toDate;
+                temporalIds[i] = sortedRows.get(i).temporalId;
+                sortedEntities.add(sortedRows.get(i).entity);
+            }
+            this.entities = Collections.unmodifiableList(sortedEntities);
+        }
+
+        T asOf(final long asOf) {
+            final int index = countUpTo(fromDates, asOf) - 1;
+            return index >= 0 && toDates[index] > asOf ? entities.get(index) : null;
+        }
+
+        /**
+         * @return whether {@code row} is indexed as is, i.e. with the same temporal id and dates.
+         */
+        boolean contains(final Row<?, T> row) {
+            for (int i = countUpTo(fromDates, row.fromDate) - 1; i >= 0 && fromDates[i] == row.fromDate; i--) {
+                if (toDates[i] == row.toDate && temporalIds[i].equals(row.temporalId)) return true;
+            }
+            return false;
+        }
+
+        /**
+         * @param replacedRows collects the rows of this key replaced by {@code changedRows}.
+         * @return the rows of this key with {@code changedRows} replacing the rows with the same temporal id.
+         */
+        <ID> List<Row<ID, T>> merge(final ID id, final List<Row<ID, T>> changedRows, final List<Row<ID, T>> replacedRows) {
+            final Map<Object, Row<ID, T>> rowsByTemporalId = new HashMap<>();
+            for (int i = 0; i < entities.size(); i++) {
+                rowsByTemporalId.put(temporalIds[i], new Row<>(id, temporalIds[i], fromDates[i], toDates[i], entities.get(i)));
+            }
+            for (Row<ID, T> row : changedRows) {
+                final Row<ID, T> replacedRow = rowsByTemporalId.put(row.temporalId, row);
+                if (replacedRow != null) replacedRows.add(replacedRow);
+            }
+            return new ArrayList<>(rowsByTemporalId.values());
+        }
+    }
+
+    /**
+     * An immutable state of the index, replaced as a whole on every refresh.
+     */
+    private static final class Snapshot<ID, T> {
+        private final Map<ID, KeyRows<T>> rowsById;
+        private final long[] fromDates;
+        private final long[] toDates;
+
+        private Snapshot(final Map<ID, KeyRows<T>> rowsById, final long[] fromDates, final long[] toDates) {
+            this.rowsById = rowsById;
+            this.fromDates = fromDates;
+            this.toDates = toDates;
+        }
+
+        static <ID, T> Snapshot<ID, T> of(final Collection<Row<ID, T>> rows) {
+            final Map<ID, KeyRows<T>> rowsById = new HashMap<>();
+            groupById(rows).forEach((id, keyRows) -> rowsById.put(id, new KeyRows<>(keyRows)));
+            final long[] fromDates = rows.stream().mapToLong(it -> it.fromDate).toArray();
+            final long[] toDates = rows.stream().mapToLong(it -> it.toDate).toArray();
+            Arrays.sort(fromDates);
+            Arrays.sort(toDates);
+            return new Snapshot<>(rowsById, fromDates, toDates);
+        }
+
+        /**
+         * @return a snapshot with {@code readRows} merged in, or this snapshot when all of them are already indexed.
+         * The sorted dates of all rows are updated by merging in the dates of the changed rows, which are few compared
+         * to the indexed ones, rather than sorting all dates again.
+         */
+        Snapshot<ID, T> merge(final Collection<Row<ID, T>> readRows) {
+            final List<Row<ID, T>> changedRows = new ArrayList<>();
+            for (Row<ID, T> row : readRows) {
+                final KeyRows<T> keyRows = rowsById.get(row.id);
+                if (keyRows == null || !keyRows.contains(row)) changedRows.add(row);
+            }
+            if (changedRows.isEmpty()) return this;
+            final Map<ID, KeyRows<T>> mergedRowsById = new HashMap<>(rowsById);
+            final List<Row<ID, T>> replacedRows = new ArrayList<>();
+            groupById(changedRows).forEach((id, keyRows) -> {
+                final KeyRows<T> previousRows = rowsById.get(id);
+                mergedRowsById.put(id, new KeyRows<>(previousRows == null ? keyRows : previousRows.merge(id, keyRows, replacedRows)));
+            });
+            return new Snapshot<>(mergedRowsById,
+                    mergeSorted(fromDates, sortedDates(replacedRows, true), sortedDates(changedRows, true)),
+                    mergeSorted(toDates, sortedDates(replacedRows, false), sortedDates(changedRows, false)));
+        }
+
+        private static <ID, T> Map<ID, List<Row<ID, T>>> groupById(final Collection<Row<ID, T>> rows) {
+            final Map<ID, List<Row<ID, T>>> rowsById = new HashMap<>();
+            rows.forEach(it -> rowsById.computeIfAbsent(it.id, key -> new ArrayList<>()).add(it));
+            return rowsById;
+        }
+
+        private static long[] sortedDates(final List<? extends Row<?, ?>> rows, final boolean fromDate) {
+            final long[] dates = rows.stream().mapToLong(it -> fromDate ? it.fromDate : it.toDate).toArray();
+            Arrays.sort(dates);
+            return dates;
+        }
+
+        /**
+         * @param removed sorted values to remove from {@code values}, each of them being in {@code values}.
+         * @param added   sorted values to add to {@code values}.
+         * @return the sorted values of {@code values} without {@code removed} and with {@code added}.
+         */
+        private static long[] mergeSorted(final long[] values, final long[] removed, final long[] added) {
+            final long[] merged = new long[values.length - removed.length + added.length];
+            int valuesIndex = 0;
+            int removedIndex = 0;
+            int addedIndex = 0;
+            int mergedIndex = 0;
+            while (valuesIndex < values.length || addedIndex < added.length) {
+                if (valuesIndex < values.length && removedIndex < removed.length && values[valuesIndex] == removed[removedIndex]) {
+                    valuesIndex++;
+                    removedIndex++;
+                } else if (addedIndex < added.length && (valuesIndex == values.length || added[addedIndex] <= values[valuesIndex])) {
+                    merged[mergedIndex++] = added[addedIndex++];
+                } else {
+                    merged[mergedIndex++] = values[valuesIndex++];
+                }
+            }
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package dev.claudio.jpatemporal.repository.impl;
+
+import dev.claudio.jpatemporal.repository.RevisionDiff;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Diffs consecutive rows of the same unique key into {@link RevisionDiff}s.
+ * <p>
+ * Rows must be ordered by unique key and then by the instant they were opened at. Only the previous row is held in
+ * memory. Pairs of rows without any changed attribute (e.g. written by a blind save) don't produce a diff.
+ */
+final class RevisionDiffIterator<T, ID> implements Iterator<RevisionDiff<ID>> {
+    private final Iterator<T> rows;
+    private final Function<T, ID> idFunction;
+    private final Function<T, Instant> fromDateFunction;
+    private final BiPredicate<T, T> isRevisionPair;
+    private final DiffSupport<T> diffSupport;
+    private T previousRow;
+    private RevisionDiff<ID> nextDiff;
+
+    /**
+     * @param isRevisionPair which consecutive rows of the same unique key to diff.
+     */
+    RevisionDiffIterator(final Iterator<T> rows, final Function<T, ID> idFunction, final Function<T, Instant> fromDateFunction,
+                         final BiPredicate<T, T> isRevisionPair, final DiffSupport<T> diffSupport) {
+        this.rows = rows;
+        this.idFunction = idFunction;
+        this.fromDateFunction = fromDateFunction;
+        this.isRevisionPair = isRevisionPair;
+        this.diffSupport = diffSupport;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (nextDiff == null && rows.hasNext()) {
+            final T row = rows.next();
+            if (previousRow != null && idFunction.apply(previousRow).equals(idFunction.apply(row)) && isRevisionPair.test(previousRow, row)) {
+                final Map<String, RevisionDiff.Change> changes = diffSupport.diff(previousRow, row);
+                if (!changes.isEmpty()) nextDiff = new RevisionDiff<>(idFunction.apply(row), fromDateFunction.apply(row), changes);
+            }
+            previousRow = row;
+        }
+        return nextDiff != null;
+    }
+
+    @Override
+    public RevisionDiff<ID> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final RevisionDiff<ID> diff = nextDiff;
+        nextDiff = null;
+        return diff;
+    }
+}
@@ -0,0 +1,89 @@
+package dev.claudio.jpatemporal.repository.impl;
+
+import dev.claudio.jpatemporal.repository.TemporalChange;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Merges rows opened and rows closed within an interval into {@link TemporalChange}s.
+ * <p>
+ * Both iterators must be ordered by the instant the rows were opened (respectively closed) at. Changes are produced one
+ * instant at a time: a unique key with a row closed and a row opened at the same instant is an
+ * {@link TemporalChange.Type#UPDATE}, otherwise it's an {@link TemporalChange.Type#INSERT} or a
+ * {@link TemporalChange.Type#DELETE}. Only the rows of a single instant are held in memory at any time.
+ */
+final class TemporalChangeIterator<T, ID> implements Iterator<TemporalChange<T, ID>> {
+    private final Iterator<T> openedRows;
+    private final Iterator<T> closedRows;
+    private final Function<T, ID> idFunction;
+    private final Function<T, Instant> fromDateFunction;
+    private final Function<T, Instant> toDateFunction;
+    private final Deque<TemporalChange<T, ID>> changes = new ArrayDeque<>();
+    private T nextOpenedRow;
+    private T nextClosedRow;
+
+    TemporalChangeIterator(final Iterator<T> openedRows, final Iterator<T> closedRows, final Function<T, ID> idFunction,
+                           final Function<T, Instant> fromDateFunction, final Function<T, Instant> toDateFunction) {
+        this.openedRows = openedRows;
+        this.closedRows = closedRows;
+        this.idFunction = idFunction;
+        this.fromDateFunction = fromDateFunction;
+        this.toDateFunction = toDateFunction;
+        this.nextOpenedRow = next(openedRows);
+        this.nextClosedRow = next(closedRows);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (changes.isEmpty()) readNextInstant();
+        return !changes.isEmpty();
+    }
+
+    @Override
+    public TemporalChange<T, ID> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return changes.poll();
+    }
+
+    private void readNextInstant() {
+        final Instant instant = nextInstant();
+        if (instant == null) return;
+        final Map<ID, T> opened = new LinkedHashMap<>();
+        while (nextOpenedRow != null && instant.equals(fromDateFunction.apply(nextOpenedRow))) {
+            opened.put(idFunction.apply(nextOpenedRow), nextOpenedRow);
+            nextOpenedRow = next(openedRows);
+        }
+        final Map<ID, T> closed = new LinkedHashMap<>();
+        while (nextClosedRow != null && instant.equals(toDateFunction.apply(nextClosedRow))) {
+            closed.put(idFunction.apply(nextClosedRow), nextClosedRow);
+            nextClosedRow = next(closedRows);
+        }
+        opened.forEach((id, row) -> {
+            final T previous = closed.remove(id);
+            changes.add(new TemporalChange<>(previous == null ? TemporalChange.Type.INSERT : TemporalChange.Type.UPDATE, id, instant, previous, row));
+        });
+        closed.forEach((id, row) -> changes.add(new TemporalChange<>(TemporalChange.Type.DELETE, id, instant, row, null)));
+    }
+
+    private Instant nextInstant() {
+        final Instant nextOpened = nextOpenedRow == null ? null : fromDateFunction.apply(nextOpenedRow);
+        final Instant nextClosed = nextClosedRow == null ? null : toDateFunction.apply(nextClosedRow);
+        if (nextOpened == null || nextClosed == null) {
+            return nextOpened == null ? nextClosed : nextOpened;
+        }
+        return nextOpened.isBefore(nextClosed) ? nextOpened : nextClosed;
+    }
+
+    private static <T> T next(final Iterator<T> iterator) {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+}
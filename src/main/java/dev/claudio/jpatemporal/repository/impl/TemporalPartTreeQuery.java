@@ -0,0 +1,379 @@
+package dev.claudio.jpatemporal.repository.impl;
+
+import dev.claudio.jpatemporal.exception.JpaTemporalException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.data.repository.query.Parameters;
+import org.springframework.data.repository.query.ParametersParameterAccessor;
+import org.springframework.data.repository.query.QueryMethod;
+import org.springframework.data.repository.query.RepositoryQuery;
+import org.springframework.data.repository.query.ResultProcessor;
+import org.springframework.data.repository.query.ReturnedType;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.ObjectUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static dev.claudio.jpatemporal.repository.impl.TemporalRepositoryImpl.MAX_INSTANT_DEFAULT;
+
+/**
+ * {@link RepositoryQuery} of derived query methods (e.g. {@code findByName}, {@code countByJob}) of temporal
+ * repositories, built with the Criteria API from the method's {@link PartTree}.
+ * <p>
+ * The query is restricted to current rows with an equality on {@link dev.claudio.jpatemporal.annotation.ToDate} so that
+ * the {@code (unique key, to_date)} index can be used. If the method declares one more bindable parameter than its
+ * criteria need, and that trailing parameter is an {@link Instant}, the query is instead restricted to the rows as of
+ * that instant (or to all rows when it's {@literal null}), e.g. {@code List<Employee> findByName(String name, Instant asOf)}.
+ * <p>
+ * Results are handed to the method's {@link ResultProcessor} so that interface and DTO projections (including dynamic
+ * ones) are returned as declared. DTOs are constructed in the query from their constructor parameters, as Spring Data JPA
+ * does, while interface projections are backed by the selected entities.
+ * <p>
+ * Derived delete methods aren't supported as they'd physically remove rows.
+ */
+final class TemporalPartTreeQuery implements RepositoryQuery {
+    private static final Set<Part.Type> SUPPORTED_TYPES = Collections.unmodifiableSet(EnumSet.of(
+            Part.Type.SIMPLE_PROPERTY, Part.Type.NEGATING_SIMPLE_PROPERTY,
+            Part.Type.GREATER_THAN, Part.Type.GREATER_THAN_EQUAL, Part.Type.LESS_THAN, Part.Type.LESS_THAN_EQUAL,
+            Part.Type.AFTER, Part.Type.BEFORE, Part.Type.BETWEEN,
+            Part.Type.IS_NULL, Part.Type.IS_NOT_NULL, Part.Type.TRUE, Part.Type.FALSE,
+            Part.Type.LIKE, Part.Type.NOT_LIKE, Part.Type.STARTING_WITH, Part.Type.ENDING_WITH,
+            Part.Type.CONTAINING, Part.Type.NOT_CONTAINING,
+            Part.Type.IN, Part.Type.NOT_IN
+    ));
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private final QueryMethod queryMethod;
+    private final PartTree tree;
+    private final EntityManager em;
+    private final Class<?> domainClass;
+    private final AnnotatedEntitySupport annotatedEntitySupport;
+    private final int criteriaArguments;
+    private final boolean hasAsOfParameter;
+
+    TemporalPartTreeQuery(final Method method, final RepositoryMetadata metadata, final ProjectionFactory factory, final EntityManager em) {
+        this.queryMethod = new QueryMethod(method, metadata, factory);
+        this.domainClass = metadata.getDomainType();
+        this.em = em;
+        this.annotatedEntitySupport = new AnnotatedEntitySupport(domainClass);
+        try {
+            this.tree = new PartTree(method.getName(), domainClass);
+        } catch (IllegalArgumentException e) {
+            throw new JpaTemporalException("Could not create query for method " + method + ": " + e.getMessage(), e);
+        }
+        if (tree.isDelete()) {
+            throw new JpaTemporalException("Derived delete methods aren't supported by temporal repositories: " + method);
+        }
+        final List<Part> unsupportedParts = tree.getParts().stream()
+                .filter(part -> !SUPPORTED_TYPES.contains(part.getType()))
+                .collect(Collectors.toList());
+        if (!unsupportedParts.isEmpty()) {
+            throw new JpaTemporalException("Unsupported keywords " + unsupportedParts + " in method " + method);
+        }
+        this.criteriaArguments = tree.getParts().stream().mapToInt(Part::getNumberOfArguments).sum();
+        final Parameters<?, ?> bindableParameters = queryMethod.getParameters().getBindableParameters();
+        this.hasAsOfParameter = bindableParameters.getNumberOfParameters() == criteriaArguments + 1
+                && Instant.class.equals(bindableParameters.getParameter(criteriaArguments).getType());
+        if (!hasAsOfParameter && bindableParameters.getNumberOfParameters() != criteriaArguments) {
+            throw new JpaTemporalException(String.format("Method %s declares %d parameters but its name requires %d (plus an optional trailing Instant)",
+                    method, bindableParameters.getNumberOfParameters(), criteriaArguments));
+        }
+    }
+
+    @Override
+    public Object execute(@NonNull final Object[] parameters) {
+        final ParametersParameterAccessor accessor = new ParametersParameterAccessor(queryMethod.getParameters(), parameters);
+        if (tree.isCountProjection()) {
+            return count(accessor);
+        }
+        if (tree.isExistsProjection()) {
+            return !createQuery(accessor, true, null).setMaxResults(1).getResultList().isEmpty();
+        }
+        final Pageable pageable = accessor.getPageable();
+        final ResultProcessor processor = queryMethod.getResultProcessor().withDynamicProjection(accessor);
+        final TypedQuery<?> query = createQuery(accessor, false, processor.getReturnedType());
+        if (queryMethod.isPageQuery()) {
+            final List<?> content = limit(query, pageable, 0).getResultList();
+            return processor.processResult(PageableExecutionUtils.getPage(content, pageable, () -> count(accessor)));
+        }
+        if (queryMethod.isSliceQuery()) {
+            final List<?> content = limit(query, pageable, 1).getResultList();
+            final boolean hasNext = pageable.isPaged() && content.size() > pageable.getPageSize();
+            return processor.processResult(new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext));
+        }
+        limit(query, pageable, 0);
+        if (queryMethod.isStreamQuery()) {
+            return processor.processResult(query.getResultStream());
+        }
+        final List<?> results = query.getResultList();
+        if (queryMethod.isCollectionQuery()) {
+            return processor.processResult(results);
+        }
+        if (results.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, results.size());
+        }
+        return results.isEmpty() ? null : processor.processResult(results.get(0));
+    }
+
+    @NonNull
+    @Override
+    public QueryMethod getQueryMethod() {
+        return queryMethod;
+    }
+
+    /**
+     * Applies {@code pageable} and the method's limit (e.g. {@code findFirst3By}), fetching {@code extraResults} more
+     * rows than a page so that a {@link org.springframework.data.domain.Slice} can tell whether there's a next one.
+     */
+    private TypedQuery<?> limit(final TypedQuery<?> query, final Pageable pageable, final int extraResults) {
+        Integer maxResults = tree.isLimiting() ? tree.getMaxResults() : null;
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            maxResults = maxResults == null ? pageable.getPageSize() + extraResults : Math.min(maxResults, pageable.getPageSize() + extraResults);
+        }
+        if (maxResults != null) query.setMaxResults(maxResults);
+        return query;
+    }
+
+    private long count(final ParametersParameterAccessor accessor) {
+        final CriteriaBuilder criteriaBuilder = em.getCriteriaBuilder();
+        final CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        final Root<?> root = query.from(domainClass);
+        final List<Binding> bindings = new ArrayList<>();
+        query.where(where(root, criteriaBuilder, accessor, bindings));
+        query.select(tree.isDistinct() ? criteriaBuilder.countDistinct(root) : criteriaBuilder.count(root));
+        return bind(em.createQuery(query), bindings).getSingleResult();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private TypedQuery<?> createQuery(final ParametersParameterAccessor accessor, final boolean selectOne, final ReturnedType returnedType) {
+        final CriteriaBuilder criteriaBuilder = em.getCriteriaBuilder();
+        final CriteriaQuery<Object> query = criteriaBuilder.createQuery();
+        final Root<?> root = query.from(domainClass);
+        final List<Binding> bindings = new ArrayList<>();
+        query.where(where(root, criteriaBuilder, accessor, bindings));
+        if (selectOne) {
+            query.select(criteriaBuilder.literal(1));
+        } else {
+            query.select(isDtoProjection(returnedType) ? dtoSelection(root, criteriaBuilder, returnedType) : (Root) root).distinct(tree.isDistinct());
+            final Sort sort = tree.getSort().and(accessor.getSort());
+            if (sort.isSorted()) query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        }
+        return bind(em.createQuery(query), bindings);
+    }
+
+    private static boolean isDtoProjection(final ReturnedType returnedType) {
+        return returnedType.isProjecting() && !returnedType.getReturnedType().isInterface() && !returnedType.getInputProperties().isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Selection<Object> dtoSelection(final Root<?> root, final CriteriaBuilder criteriaBuilder, final ReturnedType returnedType) {
+        final Selection<?>[] selections = returnedType.getInputProperties().stream()
+                .map(root::get)
+                .toArray(Selection<?>[]::new);
+        return criteriaBuilder.construct((Class<Object>) returnedType.getReturnedType(), selections);
+    }
+
+    private Predicate where(final Root<?> root, final CriteriaBuilder criteriaBuilder, final ParametersParameterAccessor accessor, final List<Binding> bindings) {
+        final List<Object> values = new ArrayList<>(criteriaArguments);
+        for (int i = 0; i < criteriaArguments; i++) {
+            values.add(accessor.getBindableValue(i));
+        }
+        final Iterator<Object> valueIterator = values.iterator();
+        final List<Predicate> orPredicates = new ArrayList<>();
+        for (PartTree.OrPart orPart : tree) {
+            final List<Predicate> andPredicates = new ArrayList<>();
+            for (Part part : orPart) {
+                andPredicates.add(toPredicate(part, root, criteriaBuilder, valueIterator, bindings));
+            }
+            orPredicates.add(criteriaBuilder.and(andPredicates.toArray(new Predicate[0])));
+        }
+        final Predicate criteria = orPredicates.isEmpty()
+                ? criteriaBuilder.conjunction()
+                : criteriaBuilder.or(orPredicates.toArray(new Predicate[0]));
+        return criteriaBuilder.and(criteria, temporalPredicate(root, criteriaBuilder, accessor, bindings));
+    }
+
+    private Predicate temporalPredicate(final Root<?> root, final CriteriaBuilder criteriaBuilder, final ParametersParameterAccessor accessor, final List<Binding> bindings) {
+        final Path<Instant> toDate = root.get(annotatedEntitySupport.getToDate());
+        if (!hasAsOfParameter) {
+            return criteriaBuilder.equal(toDate, parameter(criteriaBuilder, Instant.class, MAX_INSTANT_DEFAULT, bindings));
+        }
+        final Instant asOfInstant = (Instant) accessor.getBindableValue(criteriaArguments);
+        if (asOfInstant == null) {
+            return criteriaBuilder.conjunction();
+        }
+        final Path<Instant> fromDate = root.get(annotatedEntitySupport.getFromDate());
+        return criteriaBuilder.and(
+                criteriaBuilder.lessThanOrEqualTo(fromDate, parameter(criteriaBuilder, Instant.class, asOfInstant, bindings)),
+                criteriaBuilder.greaterThan(toDate, parameter(criteriaBuilder, Instant.class, asOfInstant, bindings))
+        );
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate toPredicate(final Part part, final Root<?> root, final CriteriaBuilder criteriaBuilder, final Iterator<Object> values, final List<Binding> bindings) {
+        final Expression path = path(root, part.getProperty());
+        final Class<?> type = ClassUtils.resolvePrimitiveIfNecessary(part.getProperty().getLeafProperty().getType());
+        final boolean ignoreCase = part.shouldIgnoreCase() != Part.IgnoreCaseType.NEVER && String.class.equals(type);
+        final Expression property = ignoreCase ? criteriaBuilder.upper(path) : path;
+        switch (part.getType()) {
+            case SIMPLE_PROPERTY:
+                return equalTo(criteriaBuilder, path, property, type, values.next(), ignoreCase, bindings);
+            case NEGATING_SIMPLE_PROPERTY:
+                return criteriaBuilder.not(equalTo(criteriaBuilder, path, property, type, values.next(), ignoreCase, bindings));
+            case GREATER_THAN:
+            case AFTER:
+                return criteriaBuilder.greaterThan(property, value(criteriaBuilder, type, values.next(), ignoreCase, bindings));
+            case GREATER_THAN_EQUAL:
+                return criteriaBuilder.greaterThanOrEqualTo(property, value(criteriaBuilder, type, values.next(), ignoreCase, bindings));
+            case LESS_THAN:
+            case BEFORE:
+                return criteriaBuilder.lessThan(property, value(criteriaBuilder, type, values.next(), ignoreCase, bindings));
+            case LESS_THAN_EQUAL:
+                return criteriaBuilder.lessThanOrEqualTo(property, value(criteriaBuilder, type, values.next(), ignoreCase, bindings));
+            case BETWEEN:
+                return criteriaBuilder.between(property,
+                        value(criteriaBuilder, type, values.next(), ignoreCase, bindings),
+                        value(criteriaBuilder, type, values.next(), ignoreCase, bindings));
+            case IS_NULL:
+                return criteriaBuilder.isNull(path);
+            case IS_NOT_NULL:
+                return criteriaBuilder.isNotNull(path);
+            case TRUE:
+                return criteriaBuilder.isTrue(path);
+            case FALSE:
+                return criteriaBuilder.isFalse(path);
+            case LIKE:
+                return criteriaBuilder.like(property, likeValue(criteriaBuilder, values.next(), "", "", ignoreCase, bindings), LIKE_ESCAPE);
+            case NOT_LIKE:
+                return criteriaBuilder.notLike(property, likeValue(criteriaBuilder, values.next(), "", "", ignoreCase, bindings), LIKE_ESCAPE);
+            case STARTING_WITH:
+                return criteriaBuilder.like(property, likeValue(criteriaBuilder, values.next(), "", "%", ignoreCase, bindings), LIKE_ESCAPE);
+            case ENDING_WITH:
+                return criteriaBuilder.like(property, likeValue(criteriaBuilder, values.next(), "%", "", ignoreCase, bindings), LIKE_ESCAPE);
+            case CONTAINING:
+                return criteriaBuilder.like(property, likeValue(criteriaBuilder, values.next(), "%", "%", ignoreCase, bindings), LIKE_ESCAPE);
+            case NOT_CONTAINING:
+                return criteriaBuilder.notLike(property, likeValue(criteriaBuilder, values.next(), "%", "%", ignoreCase, bindings), LIKE_ESCAPE);
+            case IN:
+                return property.in(collectionValue(criteriaBuilder, values.next(), ignoreCase, bindings));
+            case NOT_IN:
+                return criteriaBuilder.not(property.in(collectionValue(criteriaBuilder, values.next(), ignoreCase, bindings)));
+            default:
+                throw new JpaTemporalException("Unsupported keyword " + part.getType() + " in method " + queryMethod.getName());
+        }
+    }
+
+    /**
+     * @return an equality predicate, or an {@code IS NULL} one when {@code value} is {@literal null}.
+     */
+    private static Predicate equalTo(final CriteriaBuilder criteriaBuilder, final Expression<?> path, final Expression<?> property, final Class<?> type,
+                                     final Object value, final boolean ignoreCase, final List<Binding> bindings) {
+        return value == null
+                ? criteriaBuilder.isNull(path)
+                : criteriaBuilder.equal(property, value(criteriaBuilder, type, value, ignoreCase, bindings));
+    }
+
+    private static Expression<?> path(final Root<?> root, final PropertyPath propertyPath) {
+        Path<?> path = root;
+        for (PropertyPath segment : propertyPath) {
+            path = path.get(segment.getSegment());
+        }
+        return path;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Expression value(final CriteriaBuilder criteriaBuilder, final Class<?> type, final Object value, final boolean ignoreCase, final List<Binding> bindings) {
+        final Object boundValue = ignoreCase && value != null ? value.toString().toUpperCase(Locale.ROOT) : value;
+        return parameter(criteriaBuilder, (Class) type, boundValue, bindings);
+    }
+
+    /**
+     * @return a pattern matching {@code value} literally between the {@code prefix} and {@code suffix} wildcards, any
+     * wildcard in {@code value} being escaped with {@link #LIKE_ESCAPE}. Without wildcards to add ({@code Like} and
+     * {@code NotLike} keywords) {@code value} is the pattern itself and is kept as is.
+     */
+    private static Expression<String> likeValue(final CriteriaBuilder criteriaBuilder, final Object value, final String prefix, final String suffix,
+                                                final boolean ignoreCase, final List<Binding> bindings) {
+        final String literal = prefix.isEmpty() && suffix.isEmpty() ? String.valueOf(value) : EscapeCharacter.of(LIKE_ESCAPE).escape(String.valueOf(value));
+        final String pattern = prefix + literal + suffix;
+        return parameter(criteriaBuilder, String.class, ignoreCase ? pattern.toUpperCase(Locale.ROOT) : pattern, bindings);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Expression<Collection<?>> collectionValue(final CriteriaBuilder criteriaBuilder, final Object value, final boolean ignoreCase, final List<Binding> bindings) {
+        final Collection<?> collection = value instanceof Collection
+                ? (Collection<?>) value
+                : value != null && value.getClass().isArray() ? Arrays.asList(ObjectUtils.toObjectArray(value)) : Collections.singletonList(value);
+        final Collection<?> boundCollection = ignoreCase
+                ? collection.stream().map(it -> it == null ? null : it.toString().toUpperCase(Locale.ROOT)).collect(Collectors.toList())
+                : collection;
+        if (CollectionUtils.isEmpty(boundCollection)) {
+            throw new JpaTemporalException("IN/NOT IN parameters of method must not be empty");
+        }
+        return (Expression) parameter(criteriaBuilder, Collection.class, boundCollection, bindings);
+    }
+
+    private static <V> ParameterExpression<V> parameter(final CriteriaBuilder criteriaBuilder, final Class<V> type, final V value, final List<Binding> bindings) {
+        final ParameterExpression<V> parameter = criteriaBuilder.parameter(type);
+        bindings.add(new Binding(parameter, value));
+        return parameter;
+    }
+
+    private static <Q extends TypedQuery<?>> Q bind(final Q query, final List<Binding> bindings) {
+        bindings.forEach(binding -> binding.bindTo(query));
+        return query;
+    }
+
+    /**
+     * A parameter of the query along with the value to bind it to once the query is created.
+     */
+    private static final class Binding {
+        private final ParameterExpression<?> parameter;
+        private final Object value;
+
+        Binding(final ParameterExpression<?> parameter, final Object value) {
+            this.parameter = parameter;
+            this.value = value;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        void bindTo(final TypedQuery<?> query) {
+            query.setParameter((ParameterExpression) parameter, value);
+        }
+    }
+}
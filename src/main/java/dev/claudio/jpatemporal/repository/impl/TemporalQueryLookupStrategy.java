@@ -0,0 +1,65 @@
+package dev.claudio.jpatemporal.repository.impl;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.query.Procedure;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.repository.core.NamedQueries;
+import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.data.repository.query.QueryLookupStrategy;
+import org.springframework.data.repository.query.QueryMethod;
+import org.springframework.data.repository.query.RepositoryQuery;
+import org.springframework.lang.NonNull;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.Method;
+
+/**
+ * {@link QueryLookupStrategy} of temporal repositories. Methods with a declared query ({@code @Query}, {@code @Procedure}
+ * or a named query) are resolved by the given declared query strategy, whose query is used as is. Any other method is parsed as a derived query
+ * method (e.g. {@code findByName}) and executed by {@link TemporalPartTreeQuery}, which restricts it to current rows or
+ * rows as of a trailing {@link java.time.Instant} parameter.
+ */
+public final class TemporalQueryLookupStrategy implements QueryLookupStrategy {
+    private final QueryLookupStrategy declaredQueryLookupStrategy;
+    private final EntityManager em;
+
+    public TemporalQueryLookupStrategy(final QueryLookupStrategy declaredQueryLookupStrategy, final EntityManager em) {
+        this.declaredQueryLookupStrategy = declaredQueryLookupStrategy;
+        this.em = em;
+    }
+
+    @NonNull
+    @Override
+    public RepositoryQuery resolveQuery(@NonNull final Method method, @NonNull final RepositoryMetadata metadata,
+                                        @NonNull final ProjectionFactory factory, @NonNull final NamedQueries namedQueries) {
+        if (hasDeclaredQuery(method, metadata, factory, namedQueries)) {
+            return declaredQueryLookupStrategy.resolveQuery(method, metadata, factory, namedQueries);
+        }
+        return new TemporalPartTreeQuery(method, metadata, factory, em);
+    }
+
+    /**
+     * @return whether {@code method} has a query declared the way the declared query strategy looks it up.
+     */
+    private boolean hasDeclaredQuery(final Method method, final RepositoryMetadata metadata, final ProjectionFactory factory,
+                                     final NamedQueries namedQueries) {
+        if (AnnotatedElementUtils.hasAnnotation(method, Query.class) || AnnotatedElementUtils.hasAnnotation(method, Procedure.class)) {
+            return true;
+        }
+        final String namedQueryName = new QueryMethod(method, metadata, factory).getNamedQueryName();
+        return namedQueries.hasQuery(namedQueryName) || hasJpaNamedQuery(namedQueryName);
+    }
+
+    /**
+     * JPA doesn't expose whether a named query exists other than by failing to create it.
+     */
+    private boolean hasJpaNamedQuery(final String name) {
+        try {
+            em.createNamedQuery(name);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -1,20 +1,36 @@
 package dev.claudio.jpatemporal.repository.impl;
 
 import dev.claudio.jpatemporal.exception.JpaTemporalException;
+import dev.claudio.jpatemporal.metrics.TemporalRepositoryMetrics;
+import dev.claudio.jpatemporal.metrics.TemporalRepositoryMetrics.Operation;
+import dev.claudio.jpatemporal.repository.RevisionDiff;
+import dev.claudio.jpatemporal.repository.SaveMode;
+import dev.claudio.jpatemporal.repository.TemporalChange;
 import dev.claudio.jpatemporal.repository.TemporalRepository;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import lombok.val;
+import org.springframework.beans.BeanUtils;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.history.Revision;
+import org.springframework.data.history.RevisionSort;
 import org.springframework.data.history.Revisions;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.query.ReturnedType;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.data.util.DirectFieldAccessFallbackBeanWrapper;
 import org.springframework.lang.NonNull;
 import org.springframework.orm.jpa.JpaSystemException;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,18 +38,44 @@ import org.springframework.util.Assert;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
+import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import java.lang.reflect.Method;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -53,11 +95,40 @@ public class TemporalRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> im
 
     public static final ChronoUnit TIMESTAMP_PRECISION_DEFAULT = ChronoUnit.MICROS;
     public static final Instant MAX_INSTANT_DEFAULT = truncate(Instant.parse("9999-01-01T00:00:00.000000000Z"));
+    public static final int STREAM_FETCH_SIZE_DEFAULT = 1000;
+    public static final int IN_LIST_MAX_PARAMETERS_DEFAULT = 512;
+
+    static final String HINT_FETCH_SIZE = "org.hibernate.fetchSize";
+    static final String HINT_READ_ONLY = "org.hibernate.readOnly";
+    static final String IDS_PARAMETER = "temporalUniqueKeys";
+    /** Range of {@link #updateMarker()}s below {@link #MAX_INSTANT_DEFAULT}, about 12 days. */
+    private static final long UPDATE_MARKER_RANGE_MICROS = 1L << 40;
 
     private final JpaEntityInformation<T, ID> entityInformation;
     private final EntityManager em;
     private final AnnotatedEntitySupport annotatedEntitySupport;
     private final EntityAccessSupport<T> entityAccessSupport;
+    private final EntityAccessSupport.Accessor<T> uniqueKeyAccessor;
+    private final EntityAccessSupport.Accessor<T> temporalIdAccessor;
+    private final EntityAccessSupport.Accessor<T> fromDateAccessor;
+    private final EntityAccessSupport.Accessor<T> toDateAccessor;
+    private final EntityAccessSupport.Accessor<T> fingerprintAccessor;
+    private final FingerprintSupport<T> fingerprintSupport;
+    private final DiffSupport<T> diffSupport;
+    private final int uniqueKeyColumnCount;
+    /** Whether {@link #update(Specification, Map)} can insert successors with {@code INSERT ... SELECT} statements. */
+    private final boolean bulkInsertSuccessors;
+    private final SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    private int streamFetchSize = STREAM_FETCH_SIZE_DEFAULT;
+    private int insertBatchSize;
+    private int inListMaxParameters = IN_LIST_MAX_PARAMETERS_DEFAULT;
+    private SaveMode saveMode = SaveMode.COMPARE;
+    private boolean detachHistoryReads;
+    private TemporalRepositoryMetrics metrics = TemporalRepositoryMetrics.NOOP;
+    private HistoryCache<ID, T> historyCache;
+    private CurrentStateCache<ID, T> currentStateCache;
+    private ResidentIndex<ID, T> residentIndex;
 
     @SuppressFBWarnings({"EI_EXPOSE_REP2"})
     public TemporalRepositoryImpl(final JpaEntityInformation<T, ID> entityInformation, final EntityManager em) {
@@ -65,7 +136,23 @@ public class TemporalRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> im
         this.entityInformation = entityInformation;
         this.em = em;
         this.annotatedEntitySupport = new AnnotatedEntitySupport(entityInformation.getJavaType());
-        this.entityAccessSupport = new EntityAccessSupport<>(entityInformation.getJavaType(), this.annotatedEntitySupport.getAllAttributes());
+        final Map<String, Class<?>> versionedAttributes = fetchVersionedAttributes(entityInformation.getJavaType(), em);
+        final Set<String> accessedAttributes = new HashSet<>(this.annotatedEntitySupport.getAllAttributes());
+        if (this.annotatedEntitySupport.hasFingerprint()) accessedAttributes.addAll(versionedAttributes.keySet());
+        this.entityAccessSupport = new EntityAccessSupport<>(entityInformation.getJavaType(), accessedAttributes);
+        this.uniqueKeyAccessor = this.entityAccessSupport.accessor(this.annotatedEntitySupport.getUniqueKey());
+        this.temporalIdAccessor = this.entityAccessSupport.accessor(this.annotatedEntitySupport.getTemporalId());
+        this.fromDateAccessor = this.entityAccessSupport.accessor(this.annotatedEntitySupport.getFromDate());
+        this.toDateAccessor = this.entityAccessSupport.accessor(this.annotatedEntitySupport.getToDate());
+        this.fingerprintAccessor = this.annotatedEntitySupport.hasFingerprint()
+                ? this.entityAccessSupport.accessor(this.annotatedEntitySupport.getFingerprint())
+                : null;
+        this.fingerprintSupport = this.annotatedEntitySupport.hasFingerprint()
+                ? new FingerprintSupport<>(versionedAttributes, this.entityAccessSupport)
+                : null;
+        this.diffSupport = new DiffSupport<>(entityInformation.getJavaType(), versionedAttributes);
+        this.uniqueKeyColumnCount = countUniqueKeyColumns(entityInformation.getJavaType(), em);
+        this.bulkInsertSuccessors = this.annotatedEntitySupport.isTemporalIdGeneratedByDatabase() && !this.annotatedEntitySupport.hasFingerprint();
     }
 
     /******************************************************************************************************************
@@ -81,7 +168,46 @@ public class TemporalRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> im
 
     @Override
     public List<T> findAllById(@NonNull final Iterable<ID> ids, final Instant asOfInstant) {
-        return super.getQuery(inIdSpec(ids).and(toAndFromSpecification(asOfInstant)), this.getDomainClass(), Sort.unsorted()).getResultList();
+        if (isResident(asOfInstant)) {
+            return timed(Operation.FIND_ALL_BY_ID, () -> residentIndex.findAllById(ids, residentAsOf(asOfInstant)));
+        }
+        return timed(Operation.FIND_ALL_BY_ID, () -> historyCache != null && historyCache.isCacheable(asOfInstant)
+                ? findAllByIdThroughHistoryCache(ids, asOfInstant)
+                : findAllByIdInChunks(ids, asOfInstant, true));
+    }
+
+    @Override
+    public NavigableMap<Instant, T> findById(@NonNull final ID id, @NonNull final Collection<Instant> instants) {
+        return findAllById(Collections.singletonList(id), instants).getOrDefault(id, new TreeMap<>());
+    }
+
+    @Override
+    public Map<ID, NavigableMap<Instant, T>> findAllById(@NonNull final Iterable<ID> ids, @NonNull final Collection<Instant> instants) {
+        final List<Instant> sortedInstants = sortedInstants(instants);
+        if (sortedInstants.isEmpty()) {
+            return new HashMap<>();
+        }
+        return timed(Operation.FIND_ALL_BY_ID, () -> {
+            final Instant firstInstant = sortedInstants.get(0);
+            final Instant lastInstant = sortedInstants.get(sortedInstants.size() - 1);
+            final Specification<T> overlappingSpec = (root, query, criteriaBuilder) -> criteriaBuilder.and(
+                    inIdPredicate(root, criteriaBuilder),
+                    criteriaBuilder.lessThanOrEqualTo(root.get(annotatedEntitySupport.getFromDate()), lastInstant),
+                    criteriaBuilder.greaterThan(root.get(annotatedEntitySupport.getToDate()), firstInstant)
+            );
+            final Map<ID, List<T>> rowsById = new HashMap<>();
+            for (List<ID> chunk : inIdChunks(ids)) {
+                historyRead(super.getQuery(overlappingSpec, this.getDomainClass(), Sort.by(annotatedEntitySupport.getFromDate()))
+                        .setParameter(IDS_PARAMETER, chunk))
+                        .forEach(row -> rowsById.computeIfAbsent(getIdFromEntity(row), it -> new ArrayList<>()).add(row));
+            }
+            final Map<ID, NavigableMap<Instant, T>> entitiesById = new HashMap<>();
+            rowsById.forEach((id, rows) -> {
+                final NavigableMap<Instant, T> entities = rowsAsOf(rows, sortedInstants);
+                if (!entities.isEmpty()) entitiesById.put(id, entities);
+            });
+            return entitiesById;
+        });
     }
 
     @Override
@@ -91,7 +217,144 @@ public class TemporalRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> im
 
     @Override
     public List<T> findAll(final Specification<T> spec, @NonNull final Instant asOfInstant) {
-        return super.getQuery(toAndFromSpecification(asOfInstant).and(spec), this.getDomainClass(), Sort.unsorted()).getResultList();
+        if (spec == null && isResident(asOfInstant)) {
+            return timed(Operation.FIND_ALL, () -> residentIndex.findAll(residentAsOf(asOfInstant)));
+        }
+        return timed(Operation.FIND_ALL, () -> historyRead(super.getQuery(toAndFromSpecification(asOfInstant).and(spec), this.getDomainClass(), Sort.unsorted())));
+    }
+
+    @Override
+    public List<T> findAll(final Specification<T> spec, @NonNull final Sort sort, @NonNull final Instant asOfInstant) {
+        return timed(Operation.FIND_ALL, () -> historyRead(super.getQuery(toAndFromSpecification(asOfInstant).and(spec), this.getDomainClass(), sort)));
+    }
+
+    @Override
+    public Page<T> findAll(final Specification<T> spec, @NonNull final Pageable pageable, @NonNull final Instant asOfInstant) {
+        return timed(Operation.FIND_ALL, () -> {
+            final Specification<T> asOfSpec = toAndFromSpecification(asOfInstant).and(spec);
+            val query = super.getQuery(asOfSpec, this.getDomainClass(), pageable.getSort());
+            if (pageable.isUnpaged()) {
+                return new PageImpl<>(historyRead(query));
+            }
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+            return PageableExecutionUtils.getPage(historyRead(query), pageable, () -> countRows(asOfSpec));
+        });
+    }
+
+    @Override
+    public <P> List<P> findAll(final Specification<T> spec, @NonNull final Instant asOfInstant, @NonNull final Class<P> type) {
+        return timed(Operation.FIND_ALL, () -> findProjected(toAndFromSpecification(asOfInstant).and(spec), Sort.unsorted(), type, null));
+    }
+
+    @Override
+    public <P> List<P> findAllById(@NonNull final Iterable<ID> ids, final Instant asOfInstant, @NonNull final Class<P> type) {
+        return timed(Operation.FIND_ALL_BY_ID, () -> findProjected(inIdSpec().and(toAndFromSpecification(asOfInstant)), Sort.unsorted(), type, ids));
+    }
+
+    @Override
+    public <P> List<P> findAllBetween(final Specification<T> spec, @NonNull final Instant fromInstant, @NonNull final Instant toInstant, @NonNull final Class<P> type) {
+        final Specification<T> betweenSpec = (root, query, criteriaBuilder) -> criteriaBuilder.and(
+                criteriaBuilder.lessThan(root.get(annotatedEntitySupport.getFromDate()), toInstant),
+                criteriaBuilder.greaterThan(root.get(annotatedEntitySupport.getToDate()), fromInstant)
+        );
+        return timed(Operation.FIND_ALL, () -> findProjected(betweenSpec.and(spec), Sort.by(annotatedEntitySupport.getFromDate(), annotatedEntitySupport.getTemporalId()), type, null));
+    }
+
+    @Override
+    public <P> List<P> findRevisions(@NonNull final ID id, @NonNull final Class<P> type) {
+        final Specification<T> idSpec = (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get(annotatedEntitySupport.getUniqueKey()), id);
+        return timed(Operation.FIND_REVISIONS, () -> findProjected(idSpec, revisionSort(Sort.Direction.ASC), type, null));
+    }
+
+    @Override
+    public Slice<T> findAllAfter(final Specification<T> spec, @NonNull final Sort sort, final T lastSeen, final int size, @NonNull final Instant asOfInstant) {
+        Assert.isTrue(size > 0, "size must be greater than zero");
+        final Sort keysetSort = sort.and(Sort.by(annotatedEntitySupport.getTemporalId()));
+        final Specification<T> seekSpec = lastSeen == null ? null : (root, query, criteriaBuilder) -> seekPredicate(keysetSort, lastSeen, root, criteriaBuilder);
+        return timed(Operation.FIND_ALL, () -> {
+            val query = super.getQuery(toAndFromSpecification(asOfInstant).and(spec).and(seekSpec), this.getDomainClass(), keysetSort);
+            // One extra row tells whether there's a next slice without counting
+            query.setMaxResults(size + 1);
+            final List<T> entities = historyRead(query);
+            final boolean hasNext = entities.size() > size;
+            return new SliceImpl<>(hasNext ? entities.subList(0, size) : entities, PageRequest.of(0, size, keysetSort), hasNext);
+        });
+    }
+
+    @Override
+    public Stream<T> streamAll(@NonNull final Instant asOfInstant) {
+        return this.streamAll(null, asOfInstant);
+    }
+
+    @Override
+    public Stream<T> streamAll(final Specification<T> spec, @NonNull final Instant asOfInstant) {
+        return streamDetached(super.getQuery(toAndFromSpecification(asOfInstant).and(spec), this.getDomainClass(), Sort.unsorted()));
+    }
+
+    @Override
+    public Stream<TemporalChange<T, ID>> findChanges(@NonNull final Instant fromInstant, @NonNull final Instant toInstant) {
+        Assert.isTrue(!toInstant.isBefore(fromInstant), "toInstant must not be before fromInstant");
+        Assert.isTrue(toInstant.isBefore(MAX_INSTANT_DEFAULT), "toInstant must be before " + MAX_INSTANT_DEFAULT);
+        final Stream<T> openedRows = streamDetached(changedRowsQuery(annotatedEntitySupport.getFromDate(), fromInstant, toInstant));
+        final Stream<T> closedRows = streamDetached(changedRowsQuery(annotatedEntitySupport.getToDate(), fromInstant, toInstant));
+        final Iterator<TemporalChange<T, ID>> changes = new TemporalChangeIterator<>(
+                openedRows.iterator(),
+                closedRows.iterator(),
+                this::getIdFromEntity,
+                it -> (Instant) fromDateAccessor.get(it),
+                it -> (Instant) toDateAccessor.get(it));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(changes, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        openedRows.close();
+                    } finally {
+                        closedRows.close();
+                    }
+                });
+    }
+
+    @Override
+    public Stream<RevisionDiff<ID>> findRevisionDiffs(@NonNull final ID id) {
+        return revisionDiffs(streamDetached(revisionsQuery(id, Sort.Direction.ASC)), this::isSuccessor);
+    }
+
+    @Override
+    public Stream<RevisionDiff<ID>> findRevisionDiffs(@NonNull final Instant fromInstant, @NonNull final Instant toInstant) {
+        Assert.isTrue(!toInstant.isBefore(fromInstant), "toInstant must not be before fromInstant");
+        // Rows opened in the interval along with the rows closed in it, which include their predecessors
+        final Specification<T> changedSpec = (root, query, criteriaBuilder) -> criteriaBuilder.or(
+                criteriaBuilder.and(
+                        criteriaBuilder.greaterThan(root.get(annotatedEntitySupport.getFromDate()), fromInstant),
+                        criteriaBuilder.lessThanOrEqualTo(root.get(annotatedEntitySupport.getFromDate()), toInstant)),
+                criteriaBuilder.and(
+                        criteriaBuilder.greaterThan(root.get(annotatedEntitySupport.getToDate()), fromInstant),
+                        criteriaBuilder.lessThanOrEqualTo(root.get(annotatedEntitySupport.getToDate()), toInstant))
+        );
+        final Sort sort = Sort.by(annotatedEntitySupport.getUniqueKey()).and(revisionSort(Sort.Direction.ASC));
+        return revisionDiffs(streamDetached(super.getQuery(changedSpec, this.getDomainClass(), sort)), (previous, current) -> {
+            final Instant changedAt = (Instant) fromDateAccessor.get(current);
+            return isSuccessor(previous, current) && changedAt.isAfter(fromInstant) && !changedAt.isAfter(toInstant);
+        });
+    }
+
+    /**
+     * @return whether {@code current} starts when {@code previous} ends, rows separated by a gap (i.e. a delete and a
+     * later save) not being a change of one into the other.
+     */
+    private boolean isSuccessor(final T previous, final T current) {
+        return fromDateAccessor.get(current).equals(toDateAccessor.get(previous));
+    }
+
+    private Stream<RevisionDiff<ID>> revisionDiffs(final Stream<T> rows, final BiPredicate<T, T> isRevisionPair) {
+        final Iterator<RevisionDiff<ID>> diffs = new RevisionDiffIterator<>(
+                rows.iterator(),
+                this::getIdFromEntity,
+                it -> (Instant) fromDateAccessor.get(it),
+                isRevisionPair,
+                diffSupport);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(diffs, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(rows::close);
     }
 
     @Override
@@ -101,9 +364,65 @@ public class TemporalRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> im
 
     @Override
     public long count(final Specification<T> spec, @NonNull final Instant asOfInstant) {
-        return super.getCountQuery(toAndFromSpecification(asOfInstant).and(spec), this.getDomainClass()).getResultList()
-                .stream()
-                .reduce(0L, Long::sum);
+        if (spec == null && isResident(asOfInstant)) {
+            return timed(Operation.COUNT, () -> residentIndex.count(residentAsOf(asOfInstant)));
+        }
+        return timed(Operation.COUNT, () -> countRows(toAndFromSpecification(asOfInstant).and(spec)));
+    }
+
+    @Override
+    public NavigableMap<Instant, Long> countTimeline(final Specification<T> spec, @NonNull final Collection<Instant> instants) {
+        final List<Instant> sortedInstants = sortedInstants(instants);
+        if (sortedInstants.isEmpty()) {
+            return new TreeMap<>();
+        }
+        return timed(Operation.COUNT, () -> {
+            final Instant firstInstant = sortedInstants.get(0);
+            final Instant lastInstant = sortedInstants.get(sortedInstants.size() - 1);
+            final Specification<T> overlappingSpec = (root, query, criteriaBuilder) -> criteriaBuilder.and(
+                    criteriaBuilder.lessThanOrEqualTo(root.get(annotatedEntitySupport.getFromDate()), lastInstant),
+                    criteriaBuilder.greaterThan(root.get(annotatedEntitySupport.getToDate()), firstInstant)
+            );
+            val criteriaBuilder = em.getCriteriaBuilder();
+            val tupleQuery = criteriaBuilder.createTupleQuery();
+            val root = tupleQuery.from(this.getDomainClass());
+            // The temporal id keeps rows with the same dates apart should spec make the query distinct
+            tupleQuery.multiselect(
+                    root.get(annotatedEntitySupport.getTemporalId()),
+                    root.get(annotatedEntitySupport.getFromDate()),
+                    root.get(annotatedEntitySupport.getToDate())
+            ).where(overlappingSpec.and(spec).toPredicate(root, tupleQuery, criteriaBuilder));
+            final List<Tuple> intervals = em.createQuery(tupleQuery).getResultList();
+            final Instant[] fromDates = new Instant[intervals.size()];
+            final Instant[] toDates = new Instant[intervals.size()];
+            for (int i = 0; i < intervals.size(); i++) {
+                fromDates[i] = (Instant) intervals.get(i).get(1);
+                toDates[i] = (Instant) intervals.get(i).get(2);
+            }
+            return countAsOf(fromDates, toDates, sortedInstants);
+        });
+    }
+
+    @Override
+    public boolean exists(final Specification<T> spec, @NonNull final Instant asOfInstant) {
+        return super.exists(toAndFromSpecification(asOfInstant).and(spec));
+    }
+
+    @Override
+    public Set<ID> existsAllById(@NonNull final Iterable<ID> ids, @NonNull final Instant asOfInstant) {
+        final Set<ID> existingIds = new HashSet<>();
+        for (List<ID> chunk : inIdChunks(ids)) {
+            existingIds.addAll(idsQuery((root, query, criteriaBuilder) -> criteriaBuilder.and(
+                    inIdPredicate(root, criteriaBuilder),
+                    toAndFromPredicate(asOfInstant, root, criteriaBuilder)
+            )).setParameter(IDS_PARAMETER, chunk).getResultList());
+        }
+        return existingIds;
+    }
+
+    @Override
+    public List<ID> findIdsAsOf(final Specification<T> spec, @NonNull final Instant asOfInstant) {
+        return idsQuery(toAndFromSpecification(asOfInstant).and(spec)).getResultList();
     }
 
     /******************************************************************************************************************
@@ -115,24 +434,68 @@ public class TemporalRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> im
     @NonNull
     @Override
     public Optional<T> findById(@NonNull final ID id) {
-        return super.findOne((root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get(annotatedEntitySupport.getUniqueKey()), id));
+        return timed(Operation.FIND_ALL_BY_ID, () -> findCurrentThroughCache(id));
+    }
+
+    private Optional<T> findCurrentThroughCache(final ID id) {
+        if (currentStateCache == null) {
+            return findCurrentById(id);
+        }
+        // With the cache enabled entities are always returned as detached copies, whether they're cached or not
+        if (currentStateCache.isWrittenInTransaction(id)) {
+            return findCurrentById(id).map(currentStateCache::copy);
+        }
+        final CurrentStateCache.Entry<T> cached = currentStateCache.get(id);
+        metrics.recordCurrentStateCacheLookups(this.getDomainClass(), cached == null ? 0 : 1, cached == null ? 1 : 0);
+        if (cached != null) {
+            return cached.entity();
+        }
+        final long generation = currentStateCache.transactionGeneration();
+        final Optional<T> entity = findCurrentById(id);
+        currentStateCache.put(id, entity.orElse(null), generation);
+        return entity.map(currentStateCache::copy);
     }
 
     @Override
     public boolean existsById(@NonNull final ID id) {
-        return this.findById(id).isPresent();
+        if (currentStateCache != null && !currentStateCache.isWrittenInTransaction(id)) {
+            final CurrentStateCache.Entry<T> cached = currentStateCache.get(id);
+            if (cached != null) {
+                return cached.exists();
+            }
+        }
+        return timed(Operation.EXISTS, () -> super.exists(toAndFromSpecification(MAX_INSTANT_DEFAULT)
+                .and((root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get(annotatedEntitySupport.getUniqueKey()), id))));
     }
 
     @Override
     public <S extends T> boolean exists(@NonNull final Example<S> example) {
         S probe = example.getProbe();
-        entityAccessSupport.setAttribute(annotatedEntitySupport.getToDate(), probe, MAX_INSTANT_DEFAULT);
+        toDateAccessor.set(probe, MAX_INSTANT_DEFAULT);
         return super.exists(example);
     }
 
     @Override
     public boolean exists(@NonNull final Specification<T> spec) {
-        return super.exists(toAndFromSpecification(now()).and(spec));
+        return timed(Operation.EXISTS, () -> super.exists(toAndFromSpecification(now()).and(spec)));
+    }
+
+    @NonNull
+    @Override
+    public List<T> findAll() {
+        return timed(Operation.FIND_ALL, () -> super.findAll());
+    }
+
+    @NonNull
+    @Override
+    public List<T> findAll(@NonNull final Sort sort) {
+        return timed(Operation.FIND_ALL, () -> super.findAll(sort));
+    }
+
+    @NonNull
+    @Override
+    public List<T> findAll(final Specification<T> spec) {
+        return timed(Operation.FIND_ALL, () -> super.findAll(spec));
     }
 
     @NonNull
@@ -150,81 +513,141 @@ public class TemporalRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> im
 
     @Override
     public long count() {
-        return super.count((Specification<T>) null);
+        return timed(Operation.COUNT, () -> countRows(toAndFromSpecification(MAX_INSTANT_DEFAULT)));
     }
 
     @NonNull
     @Override
     @Transactional
     public <S extends T> S save(@NonNull final S entity) {
-        ID id = getIdFromEntity(entity);
-        Optional<T> existingEntity = findById(id);
-        if (existingEntity.isPresent() && existingEntity.get().equals(entity)) {
-            return entity;
-        }
-        val currentTime = now();
-        deleteById(id, currentTime);
-        entityAccessSupport.setAttribute(annotatedEntitySupport.getFromDate(), entity, currentTime);
-        entityAccessSupport.setAttribute(annotatedEntitySupport.getToDate(), entity, MAX_INSTANT_DEFAULT);
-        entityAccessSupport.setAttribute(annotatedEntitySupport.getTemporalId(), entity, null);
-        return super.save(entity);
+        return save(entity, saveMode);
+    }
+
+    @NonNull
+    @Override
+    @Transactional
+    public <S extends T> S save(@NonNull final S entity, @NonNull final SaveMode mode) {
+        return timed(Operation.SAVE, () -> {
+            ID id = getIdFromEntity(entity);
+            if (mode == SaveMode.BLIND) {
+                val currentTime = now();
+                deleteById(id, currentTime);
+                return insert(entity, currentTime);
+            }
+            if (fingerprintSupport != null) {
+                return saveByFingerprint(id, entity);
+            }
+            // Read from the database rather than the current state cache, whose entries may be stale
+            Optional<T> existingEntity = findCurrentById(id);
+            if (existingEntity.isPresent() && existingEntity.get().equals(entity)) {
+                metrics.recordSkippedSaves(this.getDomainClass(), 1);
+                return entity;
+            }
+            val currentTime = now();
+            deleteById(id, currentTime);
+            return insert(entity, currentTime);
+        });
     }
 
     @NonNull
     @Override
     @Transactional
     public <S extends T> List<S> saveAll(@NonNull final Iterable<S> entities) {
+        return saveAll(entities, saveMode);
+    }
+
+    @NonNull
+    @Override
+    @Transactional
+    public <S extends T> List<S> saveAll(@NonNull final Iterable<S> entities, @NonNull final SaveMode mode) {
         Assert.notNull(entities, "Entities must not be null!");
+        return timed(Operation.SAVE_ALL, () -> saveAllEntities(entities, mode));
+    }
+
+    @Override
+    @Transactional
+    public long delete(final Specification<T> spec) {
+        return timed(Operation.DELETE, () -> closeOpenRows(spec, now()));
+    }
+
+    @Override
+    @Transactional
+    public long update(final Specification<T> spec, @NonNull final Map<String, ?> assignments) {
+        Assert.notNull(assignments, "assignments must not be null");
+        Assert.isTrue(assignments.keySet().stream().noneMatch(annotatedEntitySupport.getAllAttributes()::contains),
+                "assignments must not include any of " + annotatedEntitySupport.getAllAttributes());
+        return timed(Operation.UPDATE, () -> {
+            val currentTime = now();
+            val marker = updateMarker();
+            final int closed = closeOpenRows(spec, marker);
+            if (closed == 0) return 0;
+            final int inserted = bulkInsertSuccessors
+                    ? insertSuccessors(marker, currentTime, assignments)
+                    : insertSuccessorEntities(marker, currentTime, assignments);
+            // The predecessors are closed as of the update only once their successors are in
+            val criteriaBuilder = em.getCriteriaBuilder();
+            val criteriaUpdate = criteriaBuilder.createCriteriaUpdate(this.getDomainClass());
+            val root = criteriaUpdate.from(this.getDomainClass());
+            criteriaUpdate.set(root.get(annotatedEntitySupport.getToDate()), currentTime)
+                    .where(criteriaBuilder.equal(root.get(annotatedEntitySupport.getToDate()), marker));
+            em.createQuery(criteriaUpdate).executeUpdate();
+            if (inserted != closed) {
+                throw new JpaTemporalException(String.format("Closed %d rows of %s but inserted %d successors",
+                        closed, this.getDomainClass().getName(), inserted));
+            }
+            return inserted;
+        });
+    }
+
+    private <S extends T> List<S> saveAllEntities(final Iterable<S> entities, final SaveMode mode) {
         val currentTime = now();
         Map<ID, S> toSaveEntities = StreamSupport.stream(entities.spliterator(), false)
                 .peek(it -> Assert.notNull(it, "Entities must not be null!"))
                 .collect(Collectors.toMap(this::getIdFromEntity, it -> it));
-        Map<ID, T> existingEntitiesMap = findAllById(toSaveEntities.keySet(), currentTime).stream()
-                .collect(Collectors.toMap(this::getIdFromEntity, it -> it));
+        if (mode == SaveMode.BLIND) {
+            if (!toSaveEntities.isEmpty()) deleteByIds(toSaveEntities.keySet(), currentTime);
+            return insertAll(new ArrayList<>(toSaveEntities.values()), currentTime);
+        }
+        // Fingerprints are computed once, both to compare with the current rows and to be inserted
+        if (fingerprintSupport != null) toSaveEntities.values().forEach(this::setFingerprint);
+        Map<ID, CurrentRow> currentRows = findCurrentRows(toSaveEntities.keySet(), currentTime);
 
         // Work out any entities that are already on the DB and are equals to the ones being saved. Set the temporal
         // attributes on those entities as they won't be saved but will be returned.
         Map<ID, S> entitiesThatDontNeedToBeSaved = toSaveEntities.entrySet().stream()
-                .filter(it -> Optional.ofNullable(existingEntitiesMap.get(it.getKey()))
-                        .filter(existingEntity -> {
+                .filter(it -> Optional.ofNullable(currentRows.get(it.getKey()))
+                        .filter(currentRow -> {
                             val toBeSavedEntity = it.getValue();
-                            if (existingEntity.equals(toBeSavedEntity)) {
-                                Object existingTemporalId = entityAccessSupport.getAttribute(annotatedEntitySupport.getTemporalId(), existingEntity);
-                                Object existingFromDate = entityAccessSupport.getAttribute(annotatedEntitySupport.getFromDate(), existingEntity);
-                                entityAccessSupport.setAttribute(annotatedEntitySupport.getTemporalId(), toBeSavedEntity, existingTemporalId);
-                                entityAccessSupport.setAttribute(annotatedEntitySupport.getFromDate(), toBeSavedEntity, existingFromDate);
-                                entityAccessSupport.setAttribute(annotatedEntitySupport.getToDate(), toBeSavedEntity, MAX_INSTANT_DEFAULT);
+                            if (currentRow.hasSameContentAs(toBeSavedEntity)) {
+                                currentRow.copyTemporalAttributesTo(toBeSavedEntity);
                                 return true;
                             }
                             return false;
                         })
                         .isPresent())
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        if (!entitiesThatDontNeedToBeSaved.isEmpty()) metrics.recordSkippedSaves(this.getDomainClass(), entitiesThatDontNeedToBeSaved.size());
 
         // Delete any entities that need to be saved and exist on the DB
         Set<ID> toDeleteIds = toSaveEntities.keySet().stream()
-                .filter(s -> !entitiesThatDontNeedToBeSaved.containsKey(s) && existingEntitiesMap.containsKey(s))
+                .filter(s -> !entitiesThatDontNeedToBeSaved.containsKey(s) && currentRows.containsKey(s))
                 .collect(Collectors.toSet());
         if (!toDeleteIds.isEmpty()) deleteByIds(toDeleteIds, currentTime);
 
         // Save any entities (that need to be saved) while setting temporal attributes
-        Stream<S> savedEntitiesStream = toSaveEntities.entrySet().stream()
+        List<S> toInsertEntities = toSaveEntities.entrySet().stream()
                 .filter(it -> !entitiesThatDontNeedToBeSaved.containsKey(it.getKey()))
-                .map(entry -> {
-                    val entity = entry.getValue();
-                    entityAccessSupport.setAttribute(annotatedEntitySupport.getFromDate(), entity, currentTime);
-                    entityAccessSupport.setAttribute(annotatedEntitySupport.getToDate(), entity, MAX_INSTANT_DEFAULT);
-                    entityAccessSupport.setAttribute(annotatedEntitySupport.getTemporalId(), entity, null);
-                    return super.save(entity);
-                });
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+        List<S> savedEntities = insertAll(toInsertEntities, currentTime, fingerprintSupport != null);
 
-        return Stream.concat(savedEntitiesStream, entitiesThatDontNeedToBeSaved.values().stream())
+        return Stream.concat(savedEntities.stream(), entitiesThatDontNeedToBeSaved.values().stream())
                 .collect(Collectors.toList());
     }
 
     @Override
     public void deleteById(@NonNull final ID id) {
-        if (this.deleteById(id, now()) <= 0) {
+        if (timed(Operation.DELETE, () -> this.deleteById(id, now())) <= 0) {
             throw new EmptyResultDataAccessException(String.format("No %s entity with id %s exists!", entityInformation.getJavaType(), id), 1);
         }
     }
@@ -232,21 +655,48 @@ public class TemporalRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> im
     @Override
     public void delete(@NonNull final T entity) {
         final ID id = this.getIdFromEntity(entity);
-        this.deleteById(id, now());
+        timed(Operation.DELETE, () -> this.deleteById(id, now()));
     }
 
     @Override
-    public void deleteAllInBatch() {
-        this.deleteByIds(null, now());
+    public void deleteAll() {
+        timed(Operation.DELETE, () -> this.deleteByIds(null, now()));
     }
 
     @Override
-    public void deleteAllInBatch(@NonNull final Iterable<T> entities) {
+    public void deleteAll(@NonNull final Iterable<? extends T> entities) {
         Set<ID> idsToDelete = StreamSupport.stream(entities.spliterator(), false)
                 .map(this::getIdFromEntity)
                 .collect(Collectors.toSet());
         if (idsToDelete.isEmpty()) return;
-        this.deleteByIds(idsToDelete, now());
+        timed(Operation.DELETE, () -> this.deleteByIds(idsToDelete, now()));
+    }
+
+    /**
+     * Closes the current rows of all {@code ids} with a single timestamp, in as many bulk updates as there are chunks of
+     * ids. As with {@link #deleteById(Object)}, an {@link EmptyResultDataAccessException} is thrown when any of the ids
+     * doesn't exist.
+     */
+    @Override
+    public void deleteAllById(@NonNull final Iterable<? extends ID> ids) {
+        Set<ID> idsToDelete = StreamSupport.stream(ids.spliterator(), false)
+                .collect(Collectors.toSet());
+        if (idsToDelete.isEmpty()) return;
+        final int deleted = timed(Operation.DELETE, () -> this.deleteByIds(idsToDelete, now()));
+        if (deleted < idsToDelete.size()) {
+            throw new EmptyResultDataAccessException(String.format("%d of %d %s entities to delete don't exist!",
+                    idsToDelete.size() - deleted, idsToDelete.size(), entityInformation.getJavaType()), idsToDelete.size());
+        }
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        this.deleteAll();
+    }
+
+    @Override
+    public void deleteAllInBatch(@NonNull final Iterable<T> entities) {
+        this.deleteAll(entities);
     }
 
     @Override
@@ -254,7 +704,7 @@ public class TemporalRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> im
         Set<ID> idsToDelete = StreamSupport.stream(ids.spliterator(), false)
                 .collect(Collectors.toSet());
         if (idsToDelete.isEmpty()) return;
-        this.deleteByIds(idsToDelete, now());
+        timed(Operation.DELETE, () -> this.deleteByIds(idsToDelete, now()));
     }
 
     @Override
@@ -280,29 +730,110 @@ public class TemporalRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> im
     @Override
     @NonNull
     public Optional<Revision<Integer, T>> findLastChangeRevision(@NonNull final ID id) {
-        val revisions = findRevisionsList(id);
-        return Optional.ofNullable(revisions.size() > 0 ? revisions.get(revisions.size() - 1) : null);
+        return timed(Operation.FIND_REVISIONS, () -> {
+            // The last row along with the number of rows, which is its revision number, in a single query
+            val criteriaBuilder = em.getCriteriaBuilder();
+            val query = criteriaBuilder.createTupleQuery();
+            val root = query.from(this.getDomainClass());
+            val revisionCount = query.subquery(Long.class);
+            val revision = revisionCount.from(this.getDomainClass());
+            revisionCount.select(criteriaBuilder.count(revision))
+                    .where(criteriaBuilder.equal(revision.get(annotatedEntitySupport.getUniqueKey()), id));
+            query.multiselect(root, revisionCount)
+                    .where(criteriaBuilder.equal(root.get(annotatedEntitySupport.getUniqueKey()), id))
+                    .orderBy(QueryUtils.toOrders(revisionSort(Sort.Direction.DESC), root, criteriaBuilder));
+            final TypedQuery<Tuple> typedQuery = em.createQuery(query).setMaxResults(1);
+            if (detachHistoryReads) typedQuery.setHint(HINT_READ_ONLY, true);
+            final List<Tuple> lastRows = typedQuery.getResultList();
+            if (lastRows.isEmpty()) {
+                return Optional.empty();
+            }
+            final T lastEntity = lastRows.get(0).get(0, this.getDomainClass());
+            if (detachHistoryReads) em.detach(lastEntity);
+            final long revisionNumber = lastRows.get(0).get(1, Long.class);
+            return Optional.of(toRevisions(Collections.singletonList(lastEntity), (int) revisionNumber, 1).get(0));
+        });
     }
 
     @Override
     @NonNull
     public Revisions<Integer, T> findRevisions(@NonNull final ID id) {
-        return Revisions.of(findRevisionsList(id));
+        return timed(Operation.FIND_REVISIONS, () -> Revisions.of(findRevisionsList(id)));
     }
 
+    @Override
+    public Map<ID, Revisions<Integer, T>> findRevisions(@NonNull final Iterable<ID> ids) {
+        return findRevisions(ids, null, null);
+    }
+
+    @Override
+    public Map<ID, Revisions<Integer, T>> findRevisions(@NonNull final Iterable<ID> ids, final Instant fromInstant, final Instant toInstant) {
+        Assert.isTrue(fromInstant == null || toInstant == null || !toInstant.isBefore(fromInstant), "toInstant must not be before fromInstant");
+        final Specification<T> windowSpec = (root, query, criteriaBuilder) -> {
+            final List<Predicate> predicates = new ArrayList<>();
+            predicates.add(inIdPredicate(root, criteriaBuilder));
+            if (toInstant != null) predicates.add(criteriaBuilder.lessThan(root.get(annotatedEntitySupport.getFromDate()), toInstant));
+            if (fromInstant != null) predicates.add(criteriaBuilder.greaterThan(root.get(annotatedEntitySupport.getToDate()), fromInstant));
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+        return timed(Operation.FIND_REVISIONS, () -> {
+            final Map<ID, List<T>> rowsById = new LinkedHashMap<>();
+            final Map<ID, Long> earlierRevisions = new HashMap<>();
+            for (List<ID> chunk : inIdChunks(ids)) {
+                historyRead(super.getQuery(windowSpec, this.getDomainClass(), revisionSort(Sort.Direction.ASC))
+                        .setParameter(IDS_PARAMETER, chunk))
+                        .forEach(row -> rowsById.computeIfAbsent(getIdFromEntity(row), it -> new ArrayList<>()).add(row));
+                if (fromInstant != null) earlierRevisions.putAll(countRevisionsEndedBy(chunk, fromInstant));
+            }
+            final Map<ID, Revisions<Integer, T>> revisionsById = new LinkedHashMap<>();
+            rowsById.forEach((id, rows) -> revisionsById.put(id, Revisions.of(toRevisions(rows, earlierRevisions.getOrDefault(id, 0L).intValue() + 1, 1))));
+            return revisionsById;
+        });
+    }
+
+    /**
+     * Returns a {@link Page} of revisions for the entity with the given ID. Only the requested page is loaded from the
+     * database (LIMIT/OFFSET) and a separate count query is used for the total number of revisions.
+     * <p>
+     * Revisions are ordered by their revision number which can be reversed by using {@link RevisionSort#desc()} as
+     * the {@link Pageable}'s sort. Revision numbers are the same as the ones returned by {@link #findRevisions(Object)}.
+     */
     @Override
     @NonNull
     public Page<Revision<Integer, T>> findRevisions(@NonNull final ID id, @NonNull final Pageable pageable) {
-        throw new UnsupportedOperationException("Method not yet implemented");
+        return timed(Operation.FIND_REVISIONS, () -> {
+            val direction = RevisionSort.getRevisionDirection(pageable.getSort());
+            if (pageable.isUnpaged()) {
+                val revisions = findRevisionsList(id);
+                if (direction.isDescending()) Collections.reverse(revisions);
+                return new PageImpl<>(revisions, pageable, revisions.size());
+            }
+            val query = revisionsQuery(id, direction);
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+            val entities = historyRead(query);
+            if (direction.isAscending()) {
+                val revisions = toRevisions(entities, (int) pageable.getOffset() + 1, 1);
+                return PageableExecutionUtils.getPage(revisions, pageable, () -> countRevisions(id));
+            }
+            val total = countRevisions(id);
+            val revisions = toRevisions(entities, (int) (total - pageable.getOffset()), -1);
+            return new PageImpl<>(revisions, pageable, total);
+        });
     }
 
     @Override
     @NonNull
     public Optional<Revision<Integer, T>> findRevision(@NonNull final ID id, @NonNull final Integer revisionNumber) {
-        val revisions = findRevisionsList(id);
-        return Optional.ofNullable(revisionNumber > 0 && revisions.size() >= revisionNumber
-                ? revisions.get(revisionNumber - 1)
-                : null);
+        if (revisionNumber <= 0) {
+            return Optional.empty();
+        }
+        return timed(Operation.FIND_REVISIONS, () -> {
+            val entity = historyRead(revisionsQuery(id, Sort.Direction.ASC)
+                    .setFirstResult(revisionNumber - 1)
+                    .setMaxResults(1));
+            return toRevisions(entity, revisionNumber, 1).stream().findFirst();
+        });
     }
 
     /******************************************************************************************************************
@@ -311,18 +842,56 @@ public class TemporalRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> im
      *
      *******************************************************************************************************************/
 
+    /**
+     * @return a {@link Specification} restricting the unique key to the collection bound to {@link #IDS_PARAMETER}.
+     * @see #inIdChunks(Iterable)
+     */
+    @NonNull
+    protected Specification<T> inIdSpec() {
+        return (root, query, criteriaBuilder) -> inIdPredicate(root, criteriaBuilder);
+    }
+
     @NonNull
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected Predicate inIdPredicate(final Root<? extends T> root, final CriteriaBuilder criteriaBuilder) {
+        final Expression<Collection<?>> idsParameter = (Expression) criteriaBuilder.parameter(Collection.class, IDS_PARAMETER);
+        return root.get(annotatedEntitySupport.getUniqueKey()).in(idsParameter);
+    }
+
+    /**
+     * @return a {@link Specification} restricting the unique key to {@code ids}, each of them being a bind parameter.
+     * @deprecated large collections of {@code ids} exceed the bind parameter limits of some databases and produce as
+     * many distinct statements as there are collection sizes, use {@link #inIdSpec()} with {@link #inIdChunks(Iterable)}.
+     */
+    @NonNull
+    @Deprecated
     protected Specification<T> inIdSpec(@NonNull final Iterable<ID> ids) {
         return (root, query, criteriaBuilder) -> inIdPredicate(ids, root, criteriaBuilder);
     }
 
+    /**
+     * @deprecated see {@link #inIdSpec(Iterable)}, use {@link #inIdPredicate(Root, CriteriaBuilder)} instead.
+     */
     @NonNull
+    @Deprecated
     protected Predicate inIdPredicate(@NonNull final Iterable<ID> ids, final Root<? extends T> root, final CriteriaBuilder criteriaBuilder) {
         CriteriaBuilder.In<Object> inClause = criteriaBuilder.in(root.get(annotatedEntitySupport.getUniqueKey()));
         ids.forEach(inClause::value);
         return inClause;
     }
 
+    /**
+     * Splits {@code ids} into chunks to be bound to {@link #IDS_PARAMETER}, one query per chunk. Each chunk stays
+     * within {@link #setInListMaxParameters(int)} bind parameters (taking into account embedded keys spanning multiple
+     * columns) and is padded to a power of two so that the number of distinct SQL statements stays small.
+     */
+    @NonNull
+    protected List<List<ID>> inIdChunks(@NonNull final Iterable<ID> ids) {
+        final List<List<ID>> chunks = InListPartitioner.partition(ids, inListMaxParameters, uniqueKeyColumnCount);
+        chunks.forEach(chunk -> metrics.recordInListSize(this.getDomainClass(), chunk.size()));
+        return chunks;
+    }
+
     @NonNull
     protected Specification<T> toAndFromSpecification(final Instant asOfInstant) {
         return (root, query, criteriaBuilder) -> toAndFromPredicate(asOfInstant, root, criteriaBuilder);
@@ -348,9 +917,108 @@ public class TemporalRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> im
     *
     *******************************************************************************************************************/
 
+    /**
+     * Sets the JDBC fetch size used by {@link #streamAll(Specification, Instant)}.
+     *
+     * @see dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions#streamFetchSize()
+     */
+    public void setStreamFetchSize(final int fetchSize) {
+        this.streamFetchSize = fetchSize;
+    }
+
+    /**
+     * Sets the maximum number of bind parameters used by a single {@code IN} list on the unique key.
+     *
+     * @see dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions#inListMaxParameters()
+     */
+    public void setInListMaxParameters(final int maxParameters) {
+        Assert.isTrue(maxParameters > 0, "inListMaxParameters must be greater than 0");
+        this.inListMaxParameters = maxParameters;
+    }
+
+    /**
+     * Sets the default {@link SaveMode} used by {@link #save(Object)} and {@link #saveAll(Iterable)}.
+     *
+     * @see dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions#saveMode()
+     */
+    public void setSaveMode(@NonNull final SaveMode mode) {
+        Assert.notNull(mode, "saveMode must not be null");
+        this.saveMode = mode;
+    }
+
+    /**
+     * Sets whether as-of and revision reads load their rows read-only and detach them once read, so that history reads
+     * never grow the persistence context.
+     *
+     * @see dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions#detachHistoryReads()
+     */
+    public void setDetachHistoryReads(final boolean detach) {
+        this.detachHistoryReads = detach;
+    }
+
+    /**
+     * Sets the number of rows inserted per JDBC batch by {@link #saveAll(Iterable)}.
+     *
+     * @see dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions#insertBatchSize()
+     */
+    public void setInsertBatchSize(final int batchSize) {
+        this.insertBatchSize = batchSize;
+    }
+
+    /**
+     * Enables the history cache of {@link #findAllById(Iterable, Instant)} for as-of instants older than
+     * {@code safetyHorizon}, holding up to {@code maxEntries} entries. A {@code maxEntries} of {@code 0} or less
+     * disables it.
+     *
+     * @see dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions#historyCacheSize()
+     */
+    public void setHistoryCache(final int maxEntries, @NonNull final Duration safetyHorizon) {
+        Assert.notNull(safetyHorizon, "safetyHorizon must not be null");
+        if (maxEntries <= 0) {
+            this.historyCache = null;
+            return;
+        }
+        this.historyCache = new HistoryCache<>(maxEntries, safetyHorizon, entityCopier());
+    }
+
+    /**
+     * Enables the resident index answering {@link #findById(Object, Instant)}, {@link #findAllById(Iterable, Instant)},
+     * {@link #findAll(Instant)} and {@link #count(Instant)} from memory, refreshed at most every
+     * {@code refreshInterval} from the rows written since the previous refresh minus {@code lag}.
+     *
+     * @see dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions#resident()
+     */
+    public void setResidentIndex(final boolean enabled, @NonNull final Duration refreshInterval, @NonNull final Duration lag) {
+        Assert.notNull(refreshInterval, "refreshInterval must not be null");
+        Assert.notNull(lag, "lag must not be null");
+        this.residentIndex = enabled ? new ResidentIndex<>(this::readCommittedRows, entityCopier(), refreshInterval, lag) : null;
+    }
+
+    /**
+     * Enables the cache of current rows used by {@link #findById(Object)} (and hence {@link #existsById(Object)}),
+     * holding up to {@code maxEntries} entries each for {@code timeToLive}, which must be positive. A
+     * {@code maxEntries} of {@code 0} or less disables it.
+     *
+     * @see dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions#currentStateCacheSize()
+     */
+    public void setCurrentStateCache(final int maxEntries, @NonNull final Duration timeToLive) {
+        Assert.notNull(timeToLive, "timeToLive must not be null");
+        Assert.isTrue(maxEntries <= 0 || (!timeToLive.isNegative() && !timeToLive.isZero()), "timeToLive must be positive");
+        this.currentStateCache = maxEntries > 0 ? new CurrentStateCache<>(maxEntries, timeToLive, entityCopier()) : null;
+    }
+
+    /**
+     * Sets the {@link TemporalRepositoryMetrics} this repository reports to, {@link TemporalRepositoryMetrics#NOOP} by
+     * default.
+     */
+    public void setMetrics(@NonNull final TemporalRepositoryMetrics repositoryMetrics) {
+        Assert.notNull(repositoryMetrics, "metrics must not be null");
+        this.metrics = repositoryMetrics;
+    }
+
     @SuppressWarnings("unchecked")
     protected ID getIdFromEntity(final T entity) {
-        return (ID) entityAccessSupport.getAttribute(annotatedEntitySupport.getUniqueKey(), entity);
+        return (ID) uniqueKeyAccessor.get(entity);
     }
 
     protected int deleteById(final ID id, final Instant currentTime) {
@@ -361,31 +1029,751 @@ public class TemporalRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> im
     }
 
     protected int deleteByIds(final Set<ID> ids, final Instant currentTime) {
+        if (currentStateCache != null) currentStateCache.markWritten(ids);
+        if (residentIndex != null) residentIndex.markWritten();
+        int deleted = 0;
+        if (ids == null) {
+            deleted = em.createQuery(closeOpenRowsUpdate(false, currentTime)).executeUpdate();
+        } else {
+            for (List<ID> chunk : inIdChunks(ids)) {
+                deleted += em.createQuery(closeOpenRowsUpdate(true, currentTime))
+                        .setParameter(IDS_PARAMETER, chunk)
+                        .executeUpdate();
+            }
+        }
+        metrics.recordRowsClosed(this.getDomainClass(), deleted);
+        return deleted;
+    }
+
+    /**
+     * Closes the current rows matching {@code spec} as of {@code currentTime}.
+     *
+     * @return the number of rows closed.
+     */
+    protected int closeOpenRows(final Specification<T> spec, final Instant currentTime) {
+        // The keys aren't known without reading them so all of them are treated as written
+        if (currentStateCache != null) currentStateCache.markWritten(null);
+        if (residentIndex != null) residentIndex.markWritten();
+        val criteriaBuilder = em.getCriteriaBuilder();
+        val criteriaUpdate = criteriaBuilder.createCriteriaUpdate(this.getDomainClass());
+        val root = criteriaUpdate.from(this.getDomainClass());
+        final Specification<T> openRowsSpec = (openRoot, query, cb) -> toAndFromPredicate(MAX_INSTANT_DEFAULT, openRoot, cb);
+        // Specifications are given a query to build upon even though they end up in the update's where clause
+        val predicate = openRowsSpec.and(spec).toPredicate(root, criteriaBuilder.createQuery(this.getDomainClass()), criteriaBuilder);
+        final int closed = em.createQuery(criteriaUpdate.set(root.get(annotatedEntitySupport.getToDate()), currentTime).where(predicate))
+                .executeUpdate();
+        metrics.recordRowsClosed(this.getDomainClass(), closed);
+        return closed;
+    }
+
+    /**
+     * @return a predicate matching rows after {@code lastSeen} in {@code sort} order, i.e. for sort properties
+     * {@code p1 .. pn}: {@code (p1 > v1) or (p1 = v1 and p2 > v2) or ... or (p1 = v1 and ... and pn > vn)}, where
+     * {@code >} reads {@code <} for descending properties.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate seekPredicate(final Sort sort, final T lastSeen, final Root<T> root, final CriteriaBuilder criteriaBuilder) {
+        val lastSeenWrapper = new DirectFieldAccessFallbackBeanWrapper(lastSeen);
+        final List<Predicate> alternatives = new ArrayList<>();
+        final List<Predicate> equalPrefix = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Path<Comparable> path = (Path) root;
+            for (String attribute : order.getProperty().split("\\.")) {
+                path = path.get(attribute);
+            }
+            final Comparable value = (Comparable) lastSeenWrapper.getPropertyValue(order.getProperty());
+            Assert.notNull(value, () -> order.getProperty() + " of the last seen entity must not be null");
+            final List<Predicate> alternative = new ArrayList<>(equalPrefix);
+            alternative.add(order.isAscending() ? criteriaBuilder.greaterThan(path, value) : criteriaBuilder.lessThan(path, value));
+            alternatives.add(criteriaBuilder.and(alternative.toArray(new Predicate[0])));
+            equalPrefix.add(criteriaBuilder.equal(path, value));
+        }
+        return criteriaBuilder.or(alternatives.toArray(new Predicate[0]));
+    }
+
+    /**
+     * @return a {@link dev.claudio.jpatemporal.annotation.ToDate} marking the rows closed by a single
+     * {@link #update(Specification, Map)} until their successors are inserted. It's picked at random just before
+     * {@link #MAX_INSTANT_DEFAULT} so that it neither matches any real date nor, in practice, the marker of a concurrent
+     * update, and so that rows of a unique key never share it.
+     */
+    private Instant updateMarker() {
+        return MAX_INSTANT_DEFAULT.minus(ThreadLocalRandom.current().nextLong(1, UPDATE_MARKER_RANGE_MICROS), TIMESTAMP_PRECISION_DEFAULT);
+    }
+
+    /**
+     * Copies the rows closed with the {@code marker} {@link dev.claudio.jpatemporal.annotation.ToDate} into new current
+     * rows with {@code assignments} applied, starting at {@code currentTime}, with a single {@code INSERT ... SELECT}
+     * statement and a single update so that no row is read into memory. The copies start at {@code marker}, which only
+     * they do, until they're updated. The open {@link dev.claudio.jpatemporal.annotation.ToDate} is the only value bound
+     * in the select clause and is cast so that databases that can't infer the type of such parameters accept it.
+     * <p>
+     * The statement leaves the {@link dev.claudio.jpatemporal.annotation.TemporalId} to the database so it's only used
+     * for identity columns, see {@link AnnotatedEntitySupport#isTemporalIdGeneratedByDatabase()}.
+     *
+     * @return the number of rows inserted.
+     */
+    private int insertSuccessors(final Instant marker, final Instant currentTime, final Map<String, ?> assignments) {
+        final List<String> attributes = em.getMetamodel().entity(this.getDomainClass()).getSingularAttributes().stream()
+                .map(Attribute::getName)
+                .filter(it -> !it.equals(annotatedEntitySupport.getTemporalId()))
+                .sorted()
+                .collect(Collectors.toList());
+        final String selection = attributes.stream()
+                .map(it -> it.equals(annotatedEntitySupport.getFromDate()) ? "e." + annotatedEntitySupport.getToDate()
+                        : it.equals(annotatedEntitySupport.getToDate()) ? "cast(:openedUntil as Instant)"
+                        : "e." + it)
+                .collect(Collectors.joining(", "));
+        final String insertSelect = String.format("insert into %s (%s) select %s from %s e where e.%s = :marker",
+                entityInformation.getEntityName(), String.join(", ", attributes), selection,
+                entityInformation.getEntityName(), annotatedEntitySupport.getToDate());
+        final int inserted = em.createQuery(insertSelect)
+                .setParameter("openedUntil", MAX_INSTANT_DEFAULT)
+                .setParameter("marker", marker)
+                .executeUpdate();
+
+        val criteriaBuilder = em.getCriteriaBuilder();
+        val criteriaUpdate = criteriaBuilder.createCriteriaUpdate(this.getDomainClass());
+        val root = criteriaUpdate.from(this.getDomainClass());
+        criteriaUpdate.set(root.get(annotatedEntitySupport.getFromDate()), currentTime);
+        assignments.forEach((attribute, value) -> {
+            final Path<Object> path = root.get(attribute);
+            if (value == null) {
+                criteriaUpdate.set(path, criteriaBuilder.nullLiteral(path.getJavaType()));
+            } else {
+                criteriaUpdate.set(path, value);
+            }
+        });
+        criteriaUpdate.where(criteriaBuilder.equal(root.get(annotatedEntitySupport.getFromDate()), marker));
+        em.createQuery(criteriaUpdate).executeUpdate();
+        metrics.recordRowsInserted(this.getDomainClass(), inserted);
+        return inserted;
+    }
+
+    /**
+     * Inserts the successors of the rows closed with the {@code marker} {@link dev.claudio.jpatemporal.annotation.ToDate}
+     * as entities, for {@link dev.claudio.jpatemporal.annotation.TemporalId}s generated by the persistence provider
+     * (e.g. pooled sequences) and for {@link dev.claudio.jpatemporal.annotation.Fingerprint}ed entities whose
+     * fingerprint must be recomputed.
+     *
+     * @return the number of rows inserted.
+     */
+    private int insertSuccessorEntities(final Instant marker, final Instant currentTime, final Map<String, ?> assignments) {
+        val criteriaBuilder = em.getCriteriaBuilder();
+        val query = criteriaBuilder.createQuery(this.getDomainClass());
+        val root = query.from(this.getDomainClass());
+        query.where(criteriaBuilder.equal(root.get(annotatedEntitySupport.getToDate()), marker));
+        // Copies rather than the closed rows themselves, which may be managed entities already known to the caller
+        final UnaryOperator<T> copier = entityCopier();
+        final List<T> successors = em.createQuery(query).getResultList().stream()
+                .map(copier)
+                .peek(it -> {
+                    val wrapper = new DirectFieldAccessFallbackBeanWrapper(it);
+                    assignments.forEach(wrapper::setPropertyValue);
+                })
+                .collect(Collectors.toList());
+        return insertAll(successors, currentTime).size();
+    }
+
+    private CriteriaUpdate<T> closeOpenRowsUpdate(final boolean restrictToIds, final Instant currentTime) {
         val criteriaBuilder = em.getCriteriaBuilder();
         val criteriaUpdate = criteriaBuilder.createCriteriaUpdate(this.getDomainClass());
         val root = criteriaUpdate.from(this.getDomainClass());
 
         val predicates = new ArrayList<Predicate>();
         predicates.add(toAndFromPredicate(MAX_INSTANT_DEFAULT, root, criteriaBuilder));
-        if (ids != null) predicates.add(inIdPredicate(ids, root, criteriaBuilder));
+        if (restrictToIds) predicates.add(inIdPredicate(root, criteriaBuilder));
 
-        criteriaUpdate.set(root.get(annotatedEntitySupport.getToDate()), currentTime)
+        return criteriaUpdate.set(root.get(annotatedEntitySupport.getToDate()), currentTime)
                 .where(predicates.toArray(new Predicate[0]));
-        return em.createQuery(criteriaUpdate).executeUpdate();
+    }
+
+    /**
+     * Inserts {@code entities} as new current rows starting at {@code currentTime}. When an
+     * {@link #setInsertBatchSize(int) insert batch size} is set, the persistence context is flushed every
+     * {@code insertBatchSize} rows (with the JDBC batch size raised accordingly where the provider supports it) and the
+     * flushed entities are detached.
+     */
+    protected <S extends T> List<S> insertAll(final List<S> entities, final Instant currentTime) {
+        return insertAll(entities, currentTime, false);
+    }
+
+    /**
+     * @param fingerprinted whether the fingerprints of {@code entities} were already set, see
+     *                      {@link #setFingerprint(Object)}.
+     */
+    private <S extends T> List<S> insertAll(final List<S> entities, final Instant currentTime, final boolean fingerprinted) {
+        List<S> savedEntities = new ArrayList<>(entities.size());
+        withJdbcBatchSize(() -> {
+            List<S> pendingBatch = new ArrayList<>();
+            for (S entity : entities) {
+                S savedEntity = insert(entity, currentTime, fingerprinted);
+                savedEntities.add(savedEntity);
+                if (insertBatchSize > 0) {
+                    pendingBatch.add(savedEntity);
+                    if (pendingBatch.size() >= insertBatchSize) flushAndDetach(pendingBatch);
+                }
+            }
+            if (!pendingBatch.isEmpty()) flushAndDetach(pendingBatch);
+        });
+        return savedEntities;
+    }
+
+    /**
+     * Inserts {@code entity} as the new current row starting at {@code currentTime}, any previous current row is
+     * expected to have been closed already.
+     */
+    protected <S extends T> S insert(final S entity, final Instant currentTime) {
+        return insert(entity, currentTime, false);
+    }
+
+    /**
+     * @param fingerprinted whether the fingerprint of {@code entity} was already set, see {@link #setFingerprint(Object)}.
+     */
+    private <S extends T> S insert(final S entity, final Instant currentTime, final boolean fingerprinted) {
+        fromDateAccessor.set(entity, currentTime);
+        toDateAccessor.set(entity, MAX_INSTANT_DEFAULT);
+        temporalIdAccessor.set(entity, null);
+        if (fingerprintSupport != null && !fingerprinted) setFingerprint(entity);
+        if (currentStateCache != null) currentStateCache.markWritten(Collections.singleton(getIdFromEntity(entity)));
+        if (residentIndex != null) residentIndex.markWritten();
+        metrics.recordRowsInserted(this.getDomainClass(), 1);
+        return super.save(entity);
+    }
+
+    /**
+     * Saves {@code entity} without reading the current row first: the current row is closed only if its
+     * {@link dev.claudio.jpatemporal.annotation.Fingerprint} differs from the entity's. Only when nothing was closed is
+     * the current row looked up (key and temporal attributes only) to tell an unchanged entity from a new one.
+     */
+    private <S extends T> S saveByFingerprint(final ID id, final S entity) {
+        if (id == null) {
+            throw new JpaSystemException(new JpaTemporalException("ids for this class must be manually assigned before calling save/delete: " + this.getDomainClass().getName()));
+        }
+        if (currentStateCache != null) currentStateCache.markWritten(Collections.singleton(id));
+        if (residentIndex != null) residentIndex.markWritten();
+        val currentTime = now();
+        val fingerprint = setFingerprint(entity);
+        val criteriaBuilder = em.getCriteriaBuilder();
+        val criteriaUpdate = criteriaBuilder.createCriteriaUpdate(this.getDomainClass());
+        val root = criteriaUpdate.from(this.getDomainClass());
+        val fingerprintPath = root.<String>get(annotatedEntitySupport.getFingerprint());
+        criteriaUpdate.set(root.get(annotatedEntitySupport.getToDate()), currentTime)
+                .where(
+                        toAndFromPredicate(MAX_INSTANT_DEFAULT, root, criteriaBuilder),
+                        criteriaBuilder.equal(root.get(annotatedEntitySupport.getUniqueKey()), id),
+                        criteriaBuilder.or(criteriaBuilder.notEqual(fingerprintPath, fingerprint), criteriaBuilder.isNull(fingerprintPath))
+                );
+        val closedRows = em.createQuery(criteriaUpdate).executeUpdate();
+        metrics.recordRowsClosed(this.getDomainClass(), closedRows);
+        if (closedRows == 0) {
+            val currentRow = findCurrentRows(Collections.singleton(id), currentTime).get(id);
+            if (currentRow != null) {
+                currentRow.copyTemporalAttributesTo(entity);
+                metrics.recordSkippedSaves(this.getDomainClass(), 1);
+                return entity;
+            }
+        }
+        return insert(entity, currentTime, true);
+    }
+
+    /**
+     * Computes the {@link dev.claudio.jpatemporal.annotation.Fingerprint} of {@code entity} and sets it on the entity.
+     *
+     * @return the fingerprint.
+     */
+    private String setFingerprint(final T entity) {
+        final String fingerprint = fingerprintSupport.fingerprint(entity);
+        fingerprintAccessor.set(entity, fingerprint);
+        return fingerprint;
+    }
+
+    /**
+     * @return the current rows of {@code ids} keyed by id. When the entity has a
+     * {@link dev.claudio.jpatemporal.annotation.Fingerprint} only the temporal attributes and fingerprint are selected,
+     * otherwise whole entities are loaded to be compared with {@code equals}.
+     */
+    private Map<ID, CurrentRow> findCurrentRows(final Set<ID> ids, final Instant currentTime) {
+        if (fingerprintSupport == null) {
+            return findAllByIdInChunks(ids, currentTime, false).stream()
+                    .collect(Collectors.toMap(this::getIdFromEntity, it -> new CurrentRow(
+                            temporalIdAccessor.get(it),
+                            fromDateAccessor.get(it),
+                            it,
+                            null)));
+        }
+        val criteriaBuilder = em.getCriteriaBuilder();
+        Map<ID, CurrentRow> currentRows = new HashMap<>();
+        for (List<ID> chunk : inIdChunks(ids)) {
+            val tupleQuery = criteriaBuilder.createTupleQuery();
+            val root = tupleQuery.from(this.getDomainClass());
+            tupleQuery.multiselect(
+                    root.get(annotatedEntitySupport.getUniqueKey()),
+                    root.get(annotatedEntitySupport.getTemporalId()),
+                    root.get(annotatedEntitySupport.getFromDate()),
+                    root.get(annotatedEntitySupport.getFingerprint())
+            ).where(toAndFromPredicate(MAX_INSTANT_DEFAULT, root, criteriaBuilder), inIdPredicate(root, criteriaBuilder));
+            for (Tuple tuple : em.createQuery(tupleQuery).setParameter(IDS_PARAMETER, chunk).getResultList()) {
+                @SuppressWarnings("unchecked")
+                final ID id = (ID) tuple.get(0);
+                currentRows.put(id, new CurrentRow(tuple.get(1), tuple.get(2), null, (String) tuple.get(3)));
+            }
+        }
+        return currentRows;
+    }
+
+    private static List<Instant> sortedInstants(final Collection<Instant> instants) {
+        Assert.notNull(instants, "instants must not be null");
+        Assert.isTrue(instants.stream().allMatch(Objects::nonNull), "instants must not contain null values");
+        return instants.stream().distinct().sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Counts the intervals valid at each of {@code sortedInstants} in a single sweep over the sorted interval starts and
+     * ends: at any instant the count is the number of intervals started minus the number of intervals ended so far.
+     *
+     * @param fromDates inclusive interval starts, sorted in place.
+     * @param toDates exclusive interval ends, sorted in place.
+     * @param sortedInstants distinct instants in ascending order.
+     */
+    private static NavigableMap<Instant, Long> countAsOf(final Instant[] fromDates, final Instant[] toDates, final List<Instant> sortedInstants) {
+        Arrays.sort(fromDates);
+        Arrays.sort(toDates);
+        final NavigableMap<Instant, Long> counts = new TreeMap<>();
+        int started = 0;
+        int ended = 0;
+        for (Instant instant : sortedInstants) {
+            while (started < fromDates.length && !fromDates[started].isAfter(instant)) started++;
+            while (ended < toDates.length && !toDates[ended].isAfter(instant)) ended++;
+            counts.put(instant, (long) (started - ended));
+        }
+        return counts;
+    }
+
+    /**
+     * Maps each of {@code sortedInstants} to the row of {@code rows} valid at that instant in a single sweep.
+     *
+     * @param rows the rows of a single unique key, ordered by {@link dev.claudio.jpatemporal.annotation.FromDate}.
+     * @param sortedInstants distinct instants in ascending order.
+     */
+    private NavigableMap<Instant, T> rowsAsOf(final List<T> rows, final List<Instant> sortedInstants) {
+        final NavigableMap<Instant, T> rowsAsOf = new TreeMap<>();
+        int rowIndex = 0;
+        for (Instant instant : sortedInstants) {
+            // Rows of a unique key don't overlap so they're ordered by to_date as well
+            while (rowIndex < rows.size() && !((Instant) toDateAccessor.get(rows.get(rowIndex))).isAfter(instant)) {
+                rowIndex++;
+            }
+            if (rowIndex == rows.size()) break;
+            final T row = rows.get(rowIndex);
+            if (!((Instant) fromDateAccessor.get(row)).isAfter(instant)) rowsAsOf.put(instant, row);
+        }
+        return rowsAsOf;
+    }
+
+    /**
+     * @return the rows whose {@code dateAttribute} is within {@code (fromInstant, toInstant]}, ordered by it.
+     */
+    private TypedQuery<T> changedRowsQuery(final String dateAttribute, final Instant fromInstant, final Instant toInstant) {
+        final Specification<T> spec = (root, query, criteriaBuilder) -> criteriaBuilder.and(
+                criteriaBuilder.greaterThan(root.get(dateAttribute), fromInstant),
+                criteriaBuilder.lessThanOrEqualTo(root.get(dateAttribute), toInstant)
+        );
+        return super.getQuery(spec, this.getDomainClass(), Sort.by(dateAttribute, annotatedEntitySupport.getTemporalId()));
+    }
+
+    /**
+     * Reads the rows matching {@code spec} as projections of {@code type}. Closed interface projections select their
+     * attributes as a {@link Tuple} backing the projection and DTOs are built by a constructor expression, neither
+     * going through the persistence context. Open interface projections read whole entities, read-only and detached.
+     *
+     * @param ids when not {@literal null}, bound in chunks to the {@link #inIdSpec()} that {@code spec} includes.
+     */
+    @SuppressWarnings("unchecked")
+    private <P> List<P> findProjected(final Specification<T> spec, final Sort sort, final Class<P> type, final Iterable<ID> ids) {
+        Assert.notNull(type, "type must not be null");
+        val returnedType = ReturnedType.of(type, this.getDomainClass(), projectionFactory);
+        final List<List<ID>> chunks = ids == null ? Collections.singletonList(null) : inIdChunks(ids);
+        final List<P> projections = new ArrayList<>();
+        for (List<ID> chunk : chunks) {
+            final TypedQuery<?> query = projectionQuery(spec, sort, returnedType);
+            if (chunk != null) query.setParameter(IDS_PARAMETER, chunk);
+            for (Object row : query.getResultList()) {
+                if (row instanceof Tuple) {
+                    final Map<String, Object> attributes = new HashMap<>();
+                    ((Tuple) row).getElements().forEach(it -> attributes.put(it.getAlias(), ((Tuple) row).get(it)));
+                    projections.add(projectionFactory.createProjection(type, attributes));
+                } else if (returnedType.isProjecting() && type.isInterface()) {
+                    projections.add(projectionFactory.createProjection(type, detach((T) row)));
+                } else {
+                    projections.add((P) row);
+                }
+            }
+        }
+        return projections;
+    }
+
+    @SuppressWarnings("unchecked")
+    private TypedQuery<?> projectionQuery(final Specification<T> spec, final Sort sort, final ReturnedType returnedType) {
+        final List<String> properties = returnedType.getInputProperties();
+        if (!returnedType.isProjecting() || properties.isEmpty()) {
+            return super.getQuery(spec, this.getDomainClass(), sort).setHint(HINT_READ_ONLY, true);
+        }
+        val criteriaBuilder = em.getCriteriaBuilder();
+        final boolean isDto = !returnedType.getReturnedType().isInterface();
+        final CriteriaQuery<Object> query = isDto
+                ? criteriaBuilder.createQuery((Class<Object>) returnedType.getReturnedType())
+                : (CriteriaQuery<Object>) (CriteriaQuery<?>) criteriaBuilder.createTupleQuery();
+        val root = query.from(this.getDomainClass());
+        final Selection<?>[] selections = properties.stream()
+                .map(it -> root.get(it).alias(it))
+                .toArray(Selection<?>[]::new);
+        if (isDto) {
+            query.select(criteriaBuilder.construct((Class<Object>) returnedType.getReturnedType(), selections));
+        } else {
+            query.multiselect(selections);
+        }
+        val predicate = spec == null ? null : spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) query.where(predicate);
+        query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        return em.createQuery(query);
+    }
+
+    /**
+     * Streams the results of {@code query} read-only with the configured {@link #setStreamFetchSize(int) fetch size},
+     * detaching each entity as it's emitted.
+     */
+    private Stream<T> streamDetached(final TypedQuery<T> query) {
+        query.setHint(HINT_READ_ONLY, true);
+        if (streamFetchSize > 0) query.setHint(HINT_FETCH_SIZE, streamFetchSize);
+        return query.getResultStream().map(this::detach);
+    }
+
+    private Optional<T> findCurrentById(final ID id) {
+        return super.findOne((root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get(annotatedEntitySupport.getUniqueKey()), id));
+    }
+
+    /**
+     * @return a function creating copies of entities, copying every persistent attribute. Embedded attributes and
+     * mutable values (e.g. arrays and dates) are copied too so that copies don't share state, associations aren't.
+     */
+    private UnaryOperator<T> entityCopier() {
+        return copier(this.getDomainClass(), em.getMetamodel().managedType(this.getDomainClass()));
+    }
+
+    private <E> UnaryOperator<E> copier(final Class<E> type, final ManagedType<E> managedType) {
+        final Set<String> attributes = managedType.getAttributes().stream()
+                .map(Attribute::getName)
+                .collect(Collectors.toSet());
+        final EntityAccessSupport<E> copyAccessSupport = new EntityAccessSupport<>(type, attributes);
+        final List<EntityAccessSupport.Accessor<E>> accessors = new ArrayList<>(attributes.size());
+        final List<UnaryOperator<Object>> valueCopiers = new ArrayList<>(attributes.size());
+        for (Attribute<? super E, ?> attribute : managedType.getAttributes()) {
+            accessors.add(copyAccessSupport.accessor(attribute.getName()));
+            valueCopiers.add(attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.EMBEDDED
+                    ? embeddableCopier(attribute.getJavaType())
+                    : HistoryCache.valueCopier(attribute.getJavaType()));
+        }
+        return HistoryCache.copier(() -> BeanUtils.instantiateClass(type), accessors, valueCopiers);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E> UnaryOperator<Object> embeddableCopier(final Class<E> type) {
+        final UnaryOperator<E> copier = copier(type, em.getMetamodel().embeddable(type));
+        return value -> copier.apply((E) value);
+    }
+
+    /**
+     * @param historyRead whether to read the rows as a {@link #historyRead(TypedQuery) history read}.
+     */
+    private List<T> findAllByIdInChunks(final Iterable<ID> ids, final Instant asOfInstant, final boolean historyRead) {
+        return inIdChunks(ids).stream()
+                .map(chunk -> super.getQuery(inIdSpec().and(toAndFromSpecification(asOfInstant)), this.getDomainClass(), Sort.unsorted())
+                        .setParameter(IDS_PARAMETER, chunk))
+                .flatMap(query -> historyRead ? historyRead(query).stream() : query.getResultList().stream())
+                .collect(Collectors.toList());
+    }
+
+    private boolean isResident(final Instant asOfInstant) {
+        return residentIndex != null && asOfInstant != null && !residentIndex.isWrittenInTransaction();
+    }
+
+    /**
+     * Current rows end at {@link #MAX_INSTANT_DEFAULT} so lookups as of it are answered as of the instant before.
+     */
+    private static Instant residentAsOf(final Instant asOfInstant) {
+        return asOfInstant.isBefore(MAX_INSTANT_DEFAULT) ? asOfInstant : MAX_INSTANT_DEFAULT.minus(1, TIMESTAMP_PRECISION_DEFAULT);
+    }
+
+    /**
+     * Reads the rows of the {@link #residentIndex} through a new {@link EntityManager}, outside of any transaction of the
+     * caller, so that only committed rows are read.
+     *
+     * @param since {@literal null} to read all rows, otherwise only rows opened or closed at or after it.
+     */
+    private Collection<ResidentIndex.Row<ID, T>> readCommittedRows(final Instant since) {
+        final EntityManager readEntityManager = em.getEntityManagerFactory().createEntityManager();
+        try {
+            val criteriaBuilder = readEntityManager.getCriteriaBuilder();
+            val query = criteriaBuilder.createQuery(this.getDomainClass());
+            val root = query.from(this.getDomainClass());
+            if (since != null) {
+                query.where(criteriaBuilder.or(
+                        criteriaBuilder.greaterThanOrEqualTo(root.get(annotatedEntitySupport.getFromDate()), since),
+                        criteriaBuilder.and(
+                                criteriaBuilder.greaterThanOrEqualTo(root.get(annotatedEntitySupport.getToDate()), since),
+                                criteriaBuilder.lessThan(root.get(annotatedEntitySupport.getToDate()), MAX_INSTANT_DEFAULT))
+                ));
+            }
+            return readEntityManager.createQuery(query).setHint(HINT_READ_ONLY, true).getResultList().stream()
+                    .map(it -> new ResidentIndex.Row<>(getIdFromEntity(it), temporalIdAccessor.get(it),
+                            (Instant) fromDateAccessor.get(it), (Instant) toDateAccessor.get(it), it))
+                    .collect(Collectors.toList());
+        } finally {
+            readEntityManager.close();
+        }
+    }
+
+    /**
+     * Reads the results of {@code query}, which selects rows that aren't necessarily current. When
+     * {@link #setDetachHistoryReads(boolean) history reads are detached} the rows are loaded read-only, so without
+     * dirty-checking snapshots, and detached once read so that they don't accumulate in the persistence context.
+     */
+    private List<T> historyRead(final TypedQuery<T> query) {
+        if (!detachHistoryReads) {
+            return query.getResultList();
+        }
+        final List<T> entities = query.setHint(HINT_READ_ONLY, true).getResultList();
+        entities.forEach(em::detach);
+        return entities;
+    }
+
+    /**
+     * Serves the ids cached in {@link #historyCache} from it and reads the others from the database, caching them. All
+     * returned entities are detached.
+     */
+    private List<T> findAllByIdThroughHistoryCache(final Iterable<ID> ids, final Instant asOfInstant) {
+        final Set<ID> distinctIds = StreamSupport.stream(ids.spliterator(), false)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        final Map<ID, Optional<T>> hits = historyCache.getAll(distinctIds, asOfInstant);
+        final List<ID> misses = distinctIds.stream()
+                .filter(id -> !hits.containsKey(id))
+                .collect(Collectors.toList());
+        metrics.recordHistoryCacheLookups(this.getDomainClass(), hits.size(), misses.size());
+
+        final List<T> entities = hits.values().stream()
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toList());
+        if (!misses.isEmpty()) {
+            final Map<ID, T> loaded = findAllByIdInChunks(misses, asOfInstant, false).stream()
+                    .collect(Collectors.toMap(this::getIdFromEntity, this::detach));
+            misses.forEach(id -> historyCache.put(id, asOfInstant, loaded.get(id)));
+            entities.addAll(loaded.values());
+        }
+        return entities;
+    }
+
+    /**
+     * Runs {@code work} reporting its duration as {@code operation} to {@link #setMetrics(TemporalRepositoryMetrics)}.
+     */
+    private <R> R timed(final Operation operation, final Supplier<R> work) {
+        final long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            metrics.recordOperation(this.getDomainClass(), operation, System.nanoTime() - start);
+        }
+    }
+
+    private void flushAndDetach(final List<? extends T> entities) {
+        em.flush();
+        entities.forEach(em::detach);
+        entities.clear();
+    }
+
+    /**
+     * Runs {@code work} with the session's JDBC batch size set to {@link #insertBatchSize}. Only Hibernate exposes a
+     * per-session batch size so it's looked up reflectively to keep this library provider agnostic; with other providers
+     * (or when batching is disabled) {@code work} just runs with the globally configured batch size.
+     */
+    private void withJdbcBatchSize(final Runnable work) {
+        final Object session = insertBatchSize > 0 ? em.getDelegate() : null;
+        final Method getter = session == null ? null : org.springframework.util.ReflectionUtils.findMethod(session.getClass(), "getJdbcBatchSize");
+        final Method setter = session == null ? null : org.springframework.util.ReflectionUtils.findMethod(session.getClass(), "setJdbcBatchSize", Integer.class);
+        if (getter == null || setter == null) {
+            work.run();
+            return;
+        }
+        final Object previousBatchSize = org.springframework.util.ReflectionUtils.invokeMethod(getter, session);
+        org.springframework.util.ReflectionUtils.invokeMethod(setter, session, insertBatchSize);
+        try {
+            work.run();
+        } finally {
+            org.springframework.util.ReflectionUtils.invokeMethod(setter, session, previousBatchSize);
+        }
     }
 
     protected List<Revision<Integer, T>> findRevisionsList(@NonNull final ID id) {
-        List<T> allByIdAsOf = findAllById(Collections.singletonList(id), null);
-        List<Revision<Integer, T>> metadataList = new ArrayList<>();
-        for (int i = 0; i < allByIdAsOf.size(); i++) {
-            T entity = allByIdAsOf.get(i);
-            Instant timestamp = (Instant) entityAccessSupport.getAttribute(annotatedEntitySupport.getFromDate(), entity);
-            RevisionMetadataImpl<T, Integer> metadata = new RevisionMetadataImpl<>(entity, i + 1, timestamp);
+        return toRevisions(historyRead(revisionsQuery(id, Sort.Direction.ASC)), 1, 1);
+    }
+
+    /**
+     * @return a query for all revisions of {@code id} in the given {@code direction} of {@link #revisionSort}, which is
+     * the order revision numbers are assigned in.
+     */
+    protected TypedQuery<T> revisionsQuery(@NonNull final ID id, @NonNull final Sort.Direction direction) {
+        final Specification<T> idSpec = (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get(annotatedEntitySupport.getUniqueKey()), id);
+        return super.getQuery(idSpec, this.getDomainClass(), revisionSort(direction));
+    }
+
+    /**
+     * @return the order revisions are numbered in: by {@link dev.claudio.jpatemporal.annotation.FromDate}, then by
+     * {@link dev.claudio.jpatemporal.annotation.TemporalId} for the zero-length rows left by saving a unique key more
+     * than once within the same instant, so that revision numbers and pages are deterministic.
+     */
+    private Sort revisionSort(final Sort.Direction direction) {
+        return Sort.by(direction, annotatedEntitySupport.getFromDate(), annotatedEntitySupport.getTemporalId());
+    }
+
+    /**
+     * @return per id of {@code chunk}, the number of its revisions that ended by {@code instant}, i.e. that precede any
+     * revision current at or after {@code instant}. Ids without such revisions are omitted.
+     */
+    private Map<ID, Long> countRevisionsEndedBy(final List<ID> chunk, final Instant instant) {
+        val criteriaBuilder = em.getCriteriaBuilder();
+        val tupleQuery = criteriaBuilder.createTupleQuery();
+        val root = tupleQuery.from(this.getDomainClass());
+        val uniqueKey = root.get(annotatedEntitySupport.getUniqueKey());
+        tupleQuery.multiselect(uniqueKey, criteriaBuilder.count(root))
+                .where(inIdPredicate(root, criteriaBuilder), criteriaBuilder.lessThanOrEqualTo(root.get(annotatedEntitySupport.getToDate()), instant))
+                .groupBy(uniqueKey);
+        final Map<ID, Long> counts = new HashMap<>();
+        for (Tuple tuple : em.createQuery(tupleQuery).setParameter(IDS_PARAMETER, chunk).getResultList()) {
+            @SuppressWarnings("unchecked")
+            final ID id = (ID) tuple.get(0);
+            counts.put(id, (Long) tuple.get(1));
+        }
+        return counts;
+    }
+
+    protected long countRevisions(@NonNull final ID id) {
+        return countRows((root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get(annotatedEntitySupport.getUniqueKey()), id));
+    }
+
+    /**
+     * @return the number of rows matching {@code spec} (not restricted to current rows), computed by the database as a
+     * single value.
+     */
+    protected long countRows(final Specification<T> spec) {
+        val criteriaBuilder = em.getCriteriaBuilder();
+        val query = criteriaBuilder.createQuery(Long.class);
+        val root = query.from(this.getDomainClass());
+        val predicate = spec == null ? null : spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) query.where(predicate);
+        query.select(query.isDistinct() ? criteriaBuilder.countDistinct(root) : criteriaBuilder.count(root));
+        query.orderBy(Collections.emptyList());
+        return em.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * @return a query selecting the distinct {@link dev.claudio.jpatemporal.annotation.UniqueKey} of rows matching
+     * {@code spec} (not restricted to current rows).
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected TypedQuery<ID> idsQuery(final Specification<T> spec) {
+        val criteriaBuilder = em.getCriteriaBuilder();
+        final CriteriaQuery<Object> query = criteriaBuilder.createQuery();
+        val root = query.from(this.getDomainClass());
+        val predicate = spec == null ? null : spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) query.where(predicate);
+        query.select(root.get(annotatedEntitySupport.getUniqueKey())).distinct(true);
+        return (TypedQuery) em.createQuery(query);
+    }
+
+    /**
+     * Wraps {@code entities} into {@link Revision}s numbering the first one {@code firstRevisionNumber} and moving by
+     * {@code step} (either {@code 1} or {@code -1}) for each subsequent entity.
+     */
+    private List<Revision<Integer, T>> toRevisions(final List<T> entities, final int firstRevisionNumber, final int step) {
+        List<Revision<Integer, T>> metadataList = new ArrayList<>(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            T entity = entities.get(i);
+            Instant timestamp = (Instant) fromDateAccessor.get(entity);
+            RevisionMetadataImpl<T, Integer> metadata = new RevisionMetadataImpl<>(entity, firstRevisionNumber + i * step, timestamp);
             metadataList.add(Revision.of(metadata, entity));
         }
         return metadataList;
     }
 
+    /**
+     * @return the number of columns (and hence bind parameters) the {@link dev.claudio.jpatemporal.annotation.UniqueKey}
+     * attribute maps to, i.e. the number of attributes of an embedded key or {@code 1} otherwise.
+     */
+    private int countUniqueKeyColumns(final Class<T> domainClass, final EntityManager entityManager) {
+        try {
+            val uniqueKeyAttribute = entityManager.getMetamodel().managedType(domainClass).getAttribute(annotatedEntitySupport.getUniqueKey());
+            if (uniqueKeyAttribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.EMBEDDED) {
+                return entityManager.getMetamodel().embeddable(uniqueKeyAttribute.getJavaType()).getAttributes().size();
+            }
+        } catch (IllegalArgumentException e) {
+            // Not resolvable through the metamodel, assume a single column key
+        }
+        return 1;
+    }
+
+    /**
+     * @return the Java types of all persistent attributes of {@code domainClass} other than the unique key and the
+     * temporal attributes, i.e. the attributes whose changes create a new revision, by attribute name.
+     */
+    private Map<String, Class<?>> fetchVersionedAttributes(final Class<T> domainClass, final EntityManager entityManager) {
+        final Set<String> temporalAttributes = annotatedEntitySupport.getAllAttributes();
+        final Map<String, Class<?>> attributeTypes = new HashMap<>();
+        for (Attribute<? super T, ?> attribute : entityManager.getMetamodel().managedType(domainClass).getAttributes()) {
+            if (!temporalAttributes.contains(attribute.getName())) attributeTypes.put(attribute.getName(), attribute.getJavaType());
+        }
+        return attributeTypes;
+    }
+
+    private T detach(final T entity) {
+        em.detach(entity);
+        return entity;
+    }
+
+    /**
+     * The temporal attributes of a current row along with either the row's entity or its fingerprint, whichever is
+     * used to decide whether an entity being saved is unchanged.
+     */
+    private final class CurrentRow {
+        private final Object temporalId;
+        private final Object fromDate;
+        private final T entity;
+        private final String fingerprint;
+
+        CurrentRow(final Object temporalId, final Object fromDate, final T entity, final String fingerprint) {
+            this.temporalId = temporalId;
+            this.fromDate = fromDate;
+            this.entity = entity;
+            this.fingerprint = fingerprint;
+        }
+
+        boolean hasSameContentAs(final T toBeSavedEntity) {
+            if (entity != null) {
+                return entity.equals(toBeSavedEntity);
+            }
+            return fingerprint != null && fingerprint.equals(fingerprintAccessor.get(toBeSavedEntity));
+        }
+
+        void copyTemporalAttributesTo(final T toBeSavedEntity) {
+            temporalIdAccessor.set(toBeSavedEntity, temporalId);
+            fromDateAccessor.set(toBeSavedEntity, fromDate);
+            toDateAccessor.set(toBeSavedEntity, MAX_INSTANT_DEFAULT);
+            if (fingerprint != null) {
+                fingerprintAccessor.set(toBeSavedEntity, fingerprint);
+            }
+        }
+    }
+
     private static Instant now() {
         return Instant.now().truncatedTo(ChronoUnit.MICROS);
     }
@@ -1,11 +1,19 @@
 package dev.claudio.jpatemporal.repository.support;
 
+import dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions;
+import dev.claudio.jpatemporal.metrics.TemporalRepositoryMetrics;
 import dev.claudio.jpatemporal.repository.TemporalRepository;
+import dev.claudio.jpatemporal.repository.impl.TemporalQueryLookupStrategy;
 import dev.claudio.jpatemporal.repository.impl.TemporalRepositoryImpl;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
 import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.jpa.repository.support.JpaRepositoryImplementation;
 import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.RepositoryInformation;
 import org.springframework.data.repository.core.RepositoryMetadata;
 import org.springframework.data.repository.core.support.RepositoryFactorySupport;
 import org.springframework.data.repository.query.QueryLookupStrategy;
@@ -13,12 +21,15 @@ import org.springframework.data.repository.query.QueryMethodEvaluationContextPro
 import org.springframework.lang.NonNull;
 
 import javax.persistence.EntityManager;
+import java.time.Duration;
 import java.util.Optional;
 
 /**
  * Adapter to setup implementation {@link TemporalRepositoryImpl} against interface {@link TemporalRepository}.
  * Repositories that don't extend {@link TemporalRepository} use instead whatever implementation is defined by the base
  * class {@link JpaRepositoryFactoryBean} (usually {@link SimpleJpaRepository})
+ * <p>
+ * Temporal repositories report to the {@link TemporalRepositoryMetrics} bean if one is declared.
  *
  * @param <T> the type of the repository
  */
@@ -26,23 +37,37 @@ public class DefaultRepositoryFactoryBean<T extends Repository<S, ID>, S, ID>
         extends JpaRepositoryFactoryBean<T, S, ID> {
 
     private final boolean isTemporalRepository;
+    private TemporalRepositoryMetrics metrics = TemporalRepositoryMetrics.NOOP;
 
     public DefaultRepositoryFactoryBean(final Class<? extends T> repositoryInterface) {
         super(repositoryInterface);
         this.isTemporalRepository = TemporalRepository.class.isAssignableFrom(repositoryInterface);
     }
 
+    /**
+     * Configures the {@link TemporalRepositoryMetrics} temporal repositories report to, if one is available.
+     */
+    @Autowired
+    public void setTemporalRepositoryMetrics(final ObjectProvider<TemporalRepositoryMetrics> repositoryMetrics) {
+        this.metrics = repositoryMetrics.getIfAvailable(() -> TemporalRepositoryMetrics.NOOP);
+    }
+
     @NonNull
     @Override
     protected RepositoryFactorySupport createRepositoryFactory(@NonNull final EntityManager entityManager) {
         return isTemporalRepository
-                ? new DefaultRepositoryFactory(entityManager)
+                ? new DefaultRepositoryFactory(entityManager, metrics)
                 : super.createRepositoryFactory(entityManager);
     }
 
     static class DefaultRepositoryFactory extends JpaRepositoryFactory {
-        DefaultRepositoryFactory(final EntityManager entityManager) {
+        private final EntityManager em;
+        private final TemporalRepositoryMetrics metrics;
+
+        DefaultRepositoryFactory(final EntityManager entityManager, final TemporalRepositoryMetrics metrics) {
             super(entityManager);
+            this.em = entityManager;
+            this.metrics = metrics;
         }
 
         @NonNull
@@ -51,10 +76,35 @@ public class DefaultRepositoryFactoryBean<T extends Repository<S, ID>, S, ID>
             return TemporalRepositoryImpl.class;
         }
 
+        @NonNull
+        @Override
+        protected JpaRepositoryImplementation<?, ?> getTargetRepository(@NonNull final RepositoryInformation information, @NonNull final EntityManager entityManager) {
+            final JpaRepositoryImplementation<?, ?> repository = super.getTargetRepository(information, entityManager);
+            final TemporalRepositoryOptions options = AnnotatedElementUtils.findMergedAnnotation(information.getRepositoryInterface(), TemporalRepositoryOptions.class);
+            if (repository instanceof TemporalRepositoryImpl) {
+                ((TemporalRepositoryImpl<?, ?>) repository).setMetrics(metrics);
+                if (options != null) applyOptions((TemporalRepositoryImpl<?, ?>) repository, options);
+            }
+            return repository;
+        }
+
+        private static void applyOptions(final TemporalRepositoryImpl<?, ?> repository, final TemporalRepositoryOptions options) {
+            repository.setStreamFetchSize(options.streamFetchSize());
+            repository.setInsertBatchSize(options.insertBatchSize());
+            repository.setInListMaxParameters(options.inListMaxParameters());
+            repository.setSaveMode(options.saveMode());
+            repository.setDetachHistoryReads(options.detachHistoryReads());
+            repository.setHistoryCache(options.historyCacheSize(), Duration.ofSeconds(options.historyCacheSafetyHorizonSeconds()));
+            repository.setCurrentStateCache(options.currentStateCacheSize(), Duration.ofSeconds(options.currentStateCacheTtlSeconds()));
+            repository.setResidentIndex(options.resident(), Duration.ofMillis(Math.max(0, options.residentRefreshIntervalMillis())),
+                    Duration.ofSeconds(Math.max(0, options.residentRefreshLagSeconds())));
+        }
+
         @NonNull
         @Override
         protected Optional<QueryLookupStrategy> getQueryLookupStrategy(final QueryLookupStrategy.Key key, @NonNull final QueryMethodEvaluationContextProvider evaluationContextProvider) {
-            return super.getQueryLookupStrategy(QueryLookupStrategy.Key.USE_DECLARED_QUERY, evaluationContextProvider);
+            return super.getQueryLookupStrategy(QueryLookupStrategy.Key.USE_DECLARED_QUERY, evaluationContextProvider)
+                    .map(declaredQueryLookupStrategy -> new TemporalQueryLookupStrategy(declaredQueryLookupStrategy, em));
         }
     }
 }
@@ -1,5 +1,6 @@
 package dev.claudio.jpatemporal.domain
 
+import dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions
 import dev.claudio.jpatemporal.annotation.UniqueKey
 import dev.claudio.jpatemporal.repository.TemporalRepository
 import groovy.transform.Canonical
@@ -50,6 +51,26 @@ class EmbeddedUniqueKeyTest extends Specification {
             assert repositoryWithEmbeddedUniqueKey.count() == 2
             assert repositoryWithEmbeddedUniqueKeyJpa.count() == 3
     }
+
+    def "findAllById and deleteAllByIdInBatch with embedded keys spanning several IN list chunks"() {
+        given:
+            def keys = (1..5).collect { new EmployeeKey(employee_id: it, employee_id_pt_2: it * 100) }
+            repositoryWithEmbeddedUniqueKey.saveAll(keys.collect { new EmployeeWithEmbeddedUniqueKey(employeeKey: it, name: "Employee ${it.employee_id}") })
+        expect:
+            repositoryWithEmbeddedUniqueKey.findAllById(keys)*.employeeKey as Set == keys as Set
+            repositoryWithEmbeddedUniqueKey.findAllById(keys + [new EmployeeKey(employee_id: 1, employee_id_pt_2: 1)])*.employeeKey as Set == keys as Set
+        when:
+            repositoryWithEmbeddedUniqueKey.saveAll(keys.collect { new EmployeeWithEmbeddedUniqueKey(employeeKey: it, name: "Renamed ${it.employee_id}") })
+        then:
+            repositoryWithEmbeddedUniqueKey.count() == 5
+            repositoryWithEmbeddedUniqueKeyJpa.count() == 10
+            repositoryWithEmbeddedUniqueKey.findAllById(keys)*.name.every { it.startsWith('Renamed') }
+        when:
+            repositoryWithEmbeddedUniqueKey.deleteAllByIdInBatch(keys.take(3))
+        then:
+            repositoryWithEmbeddedUniqueKey.count() == 2
+            repositoryWithEmbeddedUniqueKey.findAllById(keys)*.employeeKey as Set == keys.drop(3) as Set
+    }
 }
 
 @Entity
@@ -70,6 +91,7 @@ class EmployeeKey {
     Integer employee_id_pt_2
 }
 
+@TemporalRepositoryOptions(inListMaxParameters = 4)
 interface RepositoryWithEmbeddedUniqueKey extends TemporalRepository<EmployeeWithEmbeddedUniqueKey, EmployeeKey> { }
 
 interface RepositoryWithEmbeddedUniqueKeyJpa extends JpaRepository<EmployeeWithEmbeddedUniqueKey, Long> { }
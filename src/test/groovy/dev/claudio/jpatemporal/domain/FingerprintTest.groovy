@@ -0,0 +1,113 @@
+package dev.claudio.jpatemporal.domain
+
+import dev.claudio.jpatemporal.annotation.Fingerprint
+import dev.claudio.jpatemporal.annotation.UniqueKey
+import dev.claudio.jpatemporal.repository.TemporalRepository
+import groovy.transform.Canonical
+import groovy.transform.EqualsAndHashCode
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.data.jpa.repository.JpaRepository
+import org.springframework.orm.jpa.JpaSystemException
+import spock.lang.Specification
+
+import javax.persistence.Entity
+import javax.persistence.Table
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class FingerprintTest extends Specification {
+
+    @Autowired RepositoryWithFingerprint repositoryWithFingerprint
+    @Autowired RepositoryWithFingerprintJpa repositoryWithFingerprintJpa
+
+    def setup() {
+        assert repositoryWithFingerprintJpa.count() == 0
+    }
+
+    def cleanup() {
+        repositoryWithFingerprintJpa.deleteAll()
+    }
+
+    def "save - fingerprint is computed and unchanged entities aren't saved again"() {
+        when:
+            def saved = repositoryWithFingerprint.save(new EmployeeWithFingerprint(employee_id: 1, name: 'Homer Simpson', job: 'Nuclear Technician'))
+        then:
+            saved.fingerprint != null
+            repositoryWithFingerprintJpa.count() == 1
+        when:
+            def savedAgain = repositoryWithFingerprint.save(new EmployeeWithFingerprint(employee_id: 1, name: 'Homer Simpson', job: 'Nuclear Technician'))
+        then:
+            repositoryWithFingerprintJpa.count() == 1
+            savedAgain.temporal_id == saved.temporal_id
+            savedAgain.from_date == saved.from_date
+            savedAgain.fingerprint == saved.fingerprint
+        when:
+            def changed = repositoryWithFingerprint.save(new EmployeeWithFingerprint(employee_id: 1, name: 'Homer Simpson', job: 'Astronaut'))
+        then:
+            repositoryWithFingerprintJpa.count() == 2
+            repositoryWithFingerprint.count() == 1
+            changed.fingerprint != saved.fingerprint
+            repositoryWithFingerprint.findById(1).get().job == 'Astronaut'
+    }
+
+    def "save - null UniqueKey"() {
+        when:
+            repositoryWithFingerprint.save(new EmployeeWithFingerprint(name: 'Homer Simpson', job: 'Nuclear Technician'))
+        then:
+            thrown(JpaSystemException)
+    }
+
+    def "saveAll - only changed entities are saved"() {
+        given:
+            repositoryWithFingerprint.saveAll([
+                new EmployeeWithFingerprint(employee_id: 1, name: 'Homer Simpson', job: 'Nuclear Technician'),
+                new EmployeeWithFingerprint(employee_id: 2, name: 'Marge Simpson', job: 'Bakery Owner'),
+            ])
+            assert repositoryWithFingerprintJpa.count() == 2
+        when:
+            def saved = repositoryWithFingerprint.saveAll([
+                new EmployeeWithFingerprint(employee_id: 1, name: 'Homer Simpson', job: 'Nuclear Technician'),
+                new EmployeeWithFingerprint(employee_id: 2, name: 'Marge Simpson', job: 'Estate Agent'),
+                new EmployeeWithFingerprint(employee_id: 3, name: 'Seymour Skinner', job: 'School Principal'),
+            ])
+        then:
+            saved.size() == 3
+            saved.every { it.fingerprint != null && it.temporal_id != null }
+            repositoryWithFingerprint.count() == 3
+            repositoryWithFingerprintJpa.count() == 4
+            repositoryWithFingerprint.findById(2).get().job == 'Estate Agent'
+    }
+
+    def "update - successors get their fingerprint recomputed"() {
+        given:
+            repositoryWithFingerprint.save(new EmployeeWithFingerprint(employee_id: 1, name: 'Homer Simpson', job: 'Nuclear Technician'))
+        when:
+            def updated = repositoryWithFingerprint.update(null, [job: 'Astronaut'])
+        then:
+            updated == 1
+            repositoryWithFingerprintJpa.count() == 2
+            repositoryWithFingerprint.findById(1).get().job == 'Astronaut'
+        when: 'saving the same values again is a no-op as the successor\'s fingerprint matches them'
+            def savedAgain = repositoryWithFingerprint.save(new EmployeeWithFingerprint(employee_id: 1, name: 'Homer Simpson', job: 'Astronaut'))
+        then:
+            repositoryWithFingerprintJpa.count() == 2
+            savedAgain.fingerprint == repositoryWithFingerprint.findById(1).get().fingerprint
+    }
+}
+
+@Entity
+@Table(name = "employee_fingerprint")
+@Canonical
+@EqualsAndHashCode(callSuper = false)
+class EmployeeWithFingerprint extends Temporal {
+    @UniqueKey
+    Integer employee_id
+    String name
+    String job
+    @Fingerprint
+    String fingerprint
+}
+
+interface RepositoryWithFingerprint extends TemporalRepository<EmployeeWithFingerprint, Integer> { }
+
+interface RepositoryWithFingerprintJpa extends JpaRepository<EmployeeWithFingerprint, Long> { }
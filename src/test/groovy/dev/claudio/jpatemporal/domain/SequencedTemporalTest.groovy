@@ -0,0 +1,89 @@
+package dev.claudio.jpatemporal.domain
+
+import dev.claudio.jpatemporal.StatementCounter
+import dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions
+import dev.claudio.jpatemporal.annotation.UniqueKey
+import dev.claudio.jpatemporal.repository.TemporalRepository
+import groovy.transform.Canonical
+import groovy.transform.EqualsAndHashCode
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.data.jpa.repository.JpaRepository
+import spock.lang.Specification
+
+import javax.persistence.Entity
+import javax.persistence.Table
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class SequencedTemporalTest extends Specification {
+
+    @Autowired RepositoryWithSequencedTemporal repositoryWithSequencedTemporal
+    @Autowired RepositoryWithSequencedTemporalJpa repositoryWithSequencedTemporalJpa
+    @Autowired StatementCounter statementCounter
+
+    def setup() {
+        assert repositoryWithSequencedTemporalJpa.count() == 0
+    }
+
+    def cleanup() {
+        repositoryWithSequencedTemporalJpa.deleteAll()
+    }
+
+    def "saveAll - inserts in batches with sequence generated temporal ids"() {
+        given:
+            def employees = (1..7).collect { new EmployeeWithSequence(employee_id: it, name: "Employee $it") }
+            statementCounter.clear()
+        when:
+            def saved = repositoryWithSequencedTemporal.saveAll(employees)
+        then: 'a batch of 3 prepares its insert once, so 7 rows take 3 statements rather than 7'
+            statementCounter.count('insert into employee_sequenced') == 3
+            saved.size() == 7
+            saved*.temporal_id.every { it != null }
+            saved*.temporal_id.toSet().size() == 7
+            repositoryWithSequencedTemporal.count() == 7
+            repositoryWithSequencedTemporal.findAll()*.name as Set == (1..7).collect { "Employee $it".toString() } as Set
+        when:
+            statementCounter.clear()
+            def updated = repositoryWithSequencedTemporal.saveAll((1..3).collect { new EmployeeWithSequence(employee_id: it, name: "Updated $it") })
+        then:
+            statementCounter.count('insert into employee_sequenced') == 1
+            updated.size() == 3
+            repositoryWithSequencedTemporal.count() == 7
+            repositoryWithSequencedTemporalJpa.count() == 10
+            repositoryWithSequencedTemporal.findById(1).get().name == 'Updated 1'
+    }
+
+    def "update - successors get sequence generated temporal ids"() {
+        given:
+            repositoryWithSequencedTemporal.saveAll((1..7).collect { new EmployeeWithSequence(employee_id: it, name: "Employee $it") })
+        when:
+            def updated = repositoryWithSequencedTemporal.update((root, _, cb) -> cb.le(root.get('employee_id'), 5), [name: 'Updated'])
+        then:
+            updated == 5
+            repositoryWithSequencedTemporal.count() == 7
+            repositoryWithSequencedTemporalJpa.count() == 12
+            repositoryWithSequencedTemporalJpa.findAll()*.temporal_id.toSet().size() == 12
+            repositoryWithSequencedTemporal.findAll().findAll { it.name == 'Updated' }*.employee_id as Set == (1..5) as Set
+            repositoryWithSequencedTemporal.findById(6).get().name == 'Employee 6'
+        when:
+            repositoryWithSequencedTemporal.update((root, _, cb) -> cb.equal(root.get('employee_id'), 7), [name: null])
+        then:
+            repositoryWithSequencedTemporal.findById(7).get().name == null
+            repositoryWithSequencedTemporalJpa.count() == 13
+    }
+}
+
+@Entity
+@Table(name = "employee_sequenced")
+@Canonical
+@EqualsAndHashCode(callSuper = false)
+class EmployeeWithSequence extends SequencedTemporal {
+    @UniqueKey
+    Integer employee_id
+    String name
+}
+
+@TemporalRepositoryOptions(insertBatchSize = 3)
+interface RepositoryWithSequencedTemporal extends TemporalRepository<EmployeeWithSequence, Integer> { }
+
+interface RepositoryWithSequencedTemporalJpa extends JpaRepository<EmployeeWithSequence, Long> { }
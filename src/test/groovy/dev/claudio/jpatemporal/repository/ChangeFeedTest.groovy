@@ -0,0 +1,81 @@
+package dev.claudio.jpatemporal.repository
+
+import dev.claudio.jpatemporal.BaseTestSpecification
+import dev.claudio.jpatemporal.domain.Employee
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+
+import java.time.Instant
+import java.util.stream.Collectors
+
+import static dev.claudio.jpatemporal.repository.TemporalChange.Type.DELETE
+import static dev.claudio.jpatemporal.repository.TemporalChange.Type.INSERT
+import static dev.claudio.jpatemporal.repository.TemporalChange.Type.UPDATE
+
+class ChangeFeedTest extends BaseTestSpecification {
+
+    @Autowired PlatformTransactionManager transactionManager
+
+    def "findChanges"() {
+        expect:
+            changes(year(1994), year(1995)) == [
+                [INSERT, 1, year(1995), null, 1],
+                [INSERT, 2, year(1995), null, 2],
+                [INSERT, 3, year(1995), null, 3],
+            ]
+            changes(year(1995), year(1999)) == [
+                [UPDATE, 2, year(1996), 2, 4],
+                [UPDATE, 1, year(1996), 1, 5],
+                [UPDATE, 2, year(1997), 4, 6],
+                [INSERT, 4, year(1997), null, 7],
+                [UPDATE, 1, year(1997), 5, 8],
+                [UPDATE, 1, year(1998), 8, 9],
+                [DELETE, 4, year(1999), 7, null],
+            ]
+            changes(year(1999), year(2000)) == []
+    }
+
+    def "findChanges resumes from a watermark"() {
+        given:
+            def firstPoll = inTransaction { repository.findChanges(year(1995), year(1997)).withCloseable { it.collect(Collectors.toList()) } }
+            def watermark = firstPoll.last().changedAt
+        expect:
+            firstPoll.size() == 5
+            watermark == year(1997)
+            changes(watermark, year(1999))*.get(0) == [UPDATE, DELETE]
+    }
+
+    def "findChanges of saves and deletes"() {
+        given:
+            def before = Instant.now()
+            repository.saveAll([
+                new Employee(employee_id: 1, name: 'Homer Simpson', job: 'Bowling Alley Owner'),
+                new Employee(employee_id: 10, name: 'Ned Flanders', job: 'Leftorium Owner')
+            ])
+            repository.deleteById(3)
+        when:
+            def changes = changes(before, Instant.now())
+        then:
+            changes*.getAt([0, 1]) == [[UPDATE, 1], [INSERT, 10], [DELETE, 3]] || changes*.getAt([0, 1]) == [[INSERT, 10], [UPDATE, 1], [DELETE, 3]]
+    }
+
+    def "findChanges arguments"() {
+        when:
+            repository.findChanges(year(1999), year(1998))
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    private List<List<Object>> changes(Instant from, Instant to) {
+        return inTransaction {
+            repository.findChanges(from, to).withCloseable {
+                it.map { [it.type, it.id, it.changedAt, it.previous?.temporal_id, it.current?.temporal_id] }.collect(Collectors.toList())
+            }
+        }
+    }
+
+    private <R> R inTransaction(Closure<R> closure) {
+        return new TransactionTemplate(transactionManager).execute { closure.call() }
+    }
+}
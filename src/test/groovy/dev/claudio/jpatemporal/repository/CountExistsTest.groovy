@@ -6,6 +6,7 @@ import static java.time.Instant.now
 import dev.claudio.jpatemporal.BaseTestSpecification
 import dev.claudio.jpatemporal.domain.Employee
 import org.springframework.data.domain.Example
+import org.springframework.data.domain.PageRequest
 
 class CountExistsTest extends BaseTestSpecification {
 
@@ -59,6 +60,25 @@ class CountExistsTest extends BaseTestSpecification {
             repository.count((root, _, cb) -> cb.equal(root.get("job"), 'Snow Plow Driver'), year(1997)) == 1
     }
 
+    def "countTimeline"() {
+        given:
+            def currentTime = now()
+        expect:
+            repository.countTimeline(null, [year(1997), year(1990), year(1995), currentTime, year(1998), year(1999), year(1997)]) == [
+                    (year(1990)): 0L,
+                    (year(1995)): 3L,
+                    (year(1997)): 4L,
+                    (year(1998)): 4L,
+                    (year(1999)): 3L,
+                    (currentTime): 3L,
+            ]
+            repository.countTimeline((root, _, cb) -> cb.like(root.get("name"), '%Simpson'), [year(1995), year(1996).minusSeconds(1), year(1996)])
+                    .values() as List == [2L, 2L, 2L]
+            repository.countTimeline((root, _, cb) -> cb.equal(root.get("job"), 'Astronaut'), [year(1997), year(1998)])
+                    .values() as List == [0L, 1L]
+            repository.countTimeline(null, []).isEmpty()
+    }
+
     def "exists Example"() {
         expect:
             repository.exists(Example.of(new Employee(employee_id: 1)))
@@ -79,4 +99,36 @@ class CountExistsTest extends BaseTestSpecification {
             repository.exists((root, _, cb) -> cb.equal(root.get("job"), 'Astronaut'))
             !repository.exists((root, _, cb) -> cb.equal(root.get("job"), 'Snow Plow Driver'))
     }
+
+    def "exists Spec asOfInstant"() {
+        expect:
+            repository.exists((root, _, cb) -> cb.equal(root.get("employee_id"), 4), year(1998))
+            !repository.exists((root, _, cb) -> cb.equal(root.get("employee_id"), 4), now())
+            repository.exists((root, _, cb) -> cb.equal(root.get("job"), 'Snow Plow Driver'), year(1997))
+            !repository.exists((root, _, cb) -> cb.equal(root.get("job"), 'Astronaut'), year(1997))
+            repository.exists(null, year(1995))
+            !repository.exists(null, year(1990))
+    }
+
+    def "existsAllById"() {
+        expect:
+            repository.existsAllById([1, 2, 3, 4, 5], now()) == [1, 2, 3] as Set
+            repository.existsAllById([1, 2, 3, 4, 5], year(1997)) == [1, 2, 3, 4] as Set
+            repository.existsAllById([4, 5], now()).isEmpty()
+            repository.existsAllById([], now()).isEmpty()
+    }
+
+    def "findIdsAsOf"() {
+        expect:
+            repository.findIdsAsOf(null, now()) as Set == [1, 2, 3] as Set
+            repository.findIdsAsOf(null, year(1997)) as Set == [1, 2, 3, 4] as Set
+            repository.findIdsAsOf((root, _, cb) -> cb.like(root.get("name"), '%Simpson'), year(1995)) as Set == [1, 2] as Set
+            repository.findIdsAsOf(null, year(1990)).isEmpty()
+    }
+
+    def "count revisions and current rows don't load entities"() {
+        expect:
+            repository.count() == 3
+            repository.findRevisions(1, PageRequest.of(0, 2)).totalElements == 4
+    }
 }
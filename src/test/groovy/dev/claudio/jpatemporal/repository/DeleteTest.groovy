@@ -4,6 +4,7 @@ package dev.claudio.jpatemporal.repository
 import dev.claudio.jpatemporal.BaseTestSpecification
 import dev.claudio.jpatemporal.domain.Employee
 import org.springframework.dao.EmptyResultDataAccessException
+import org.springframework.data.jpa.domain.Specification
 import org.springframework.orm.jpa.JpaSystemException
 
 import java.time.Instant
@@ -101,6 +102,47 @@ class DeleteTest extends BaseTestSpecification {
             repositoryJpa.findAll().count {it.to_date == MAX_INSTANT } == 0
     }
 
+    def "deleteAll - Closes all rows with the same timestamp"() {
+        when:
+            repository.deleteAll()
+        then:
+            def closedRows = repositoryJpa.findAll().findAll { it.temporal_id in [3, 6, 9] }
+            closedRows.size() == 3
+            closedRows*.to_date.toSet().size() == 1
+            closedRows[0].to_date >= testStartTime
+    }
+
+    def "deleteAllById"() {
+        when:
+            repository.deleteAllById([1, 3, 3])
+        then:
+            repository.findById(1).isEmpty()
+            repository.findById(3).isEmpty()
+            repository.findAll()*.employee_id == [2]
+            repositoryJpa.findAll().findAll { it.temporal_id in [3, 9] }*.to_date.toSet().size() == 1
+    }
+
+    def "deleteAllById - An id doesn't exist"() {
+        when:
+            repository.deleteAllById([1, 4])
+        then:
+            thrown(EmptyResultDataAccessException)
+            repository.findById(1).get() == homerLatestJob()
+            repository.count() == 3
+    }
+
+    def "delete - Delete entities matching a specification"() {
+        when:
+            def deleted = repository.delete((root, _, cb) -> cb.like(root.get("name"), '%Simpson'))
+        then:
+            deleted == 2
+            repository.findAll() == [skinnerLatestJob()]
+            repositoryJpa.count() == 9
+            repository.delete((root, _, cb) -> cb.like(root.get("name"), '%Simpson')) == 0
+            repository.delete((Specification<Employee>) null) == 1
+            repository.count() == 0
+    }
+
     def "deleteAll by entities"() {
         given:
             assert repository.findById(1).get() == homerLatestJob()
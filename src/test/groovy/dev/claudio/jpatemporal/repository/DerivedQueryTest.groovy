@@ -0,0 +1,120 @@
+package dev.claudio.jpatemporal.repository
+
+import dev.claudio.jpatemporal.BaseTestSpecification
+import dev.claudio.jpatemporal.domain.Employee
+import dev.claudio.jpatemporal.domain.EmployeeJob
+import dev.claudio.jpatemporal.domain.EmployeeJobDto
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.dao.IncorrectResultSizeDataAccessException
+import org.springframework.data.domain.PageRequest
+import org.springframework.data.domain.Sort
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+
+import java.util.stream.Collectors
+
+import static java.time.Instant.now
+
+class DerivedQueryTest extends BaseTestSpecification {
+
+    @Autowired PlatformTransactionManager transactionManager
+
+    def "find by property returns current rows"() {
+        expect:
+            repository.findByName('Homer Simpson') == [homerLatestJob()]
+            repository.findByName('Barney Gumble') == []
+            repository.findByJob('Astronaut').get() == homerLatestJob()
+            repository.findByJob('Snow Plow Driver').isEmpty()
+    }
+
+    def "find by property as of an instant"() {
+        expect:
+            repository.findByName('Homer Simpson', year(1997)) == [new Employee(temporal_id: 8, employee_id: 1, name: 'Homer Simpson', job: 'Snow Plow Driver', from_date: year(1997), to_date: year(1998))]
+            repository.findByName('Homer Simpson', year(1990)) == []
+            repository.findByName('Homer Simpson', null).size() == 4
+            repository.findByJob('Snow Plow Driver', year(1997)).get().temporal_id == 8
+            repository.findByJob('Human Guinea Pig', now()).isEmpty()
+            repository.findByJobIn(['Human Guinea Pig', 'Bakery Owner', 'Astronaut'], year(1996)) as Set == [
+                new Employee(temporal_id: 4, employee_id: 2, name: 'Marge Simpson', job: 'Bakery Owner', from_date: year(1996), to_date: year(1997))
+            ] as Set
+    }
+
+    def "keywords, ordering and limiting"() {
+        expect:
+            repository.findByNameEndingWithOrderByJobAsc('Simpson')*.job == ['Astronaut', 'Estate Agent']
+            repository.findByNameContainingIgnoreCase('SIMPSON', Sort.by(Sort.Direction.DESC, 'job'))*.job == ['Estate Agent', 'Astronaut']
+            repository.findByJobStartingWithOrNameIsNull('School')*.employee_id == [3]
+            repository.findFirstByNameEndingWithOrderByJobDesc('Simpson', year(1996)).get().job == 'Nuclear Safety Inspector'
+    }
+
+    def "wildcards in values are matched literally"() {
+        given:
+            repository.save(new Employee(employee_id: 10, name: 'Mr_Sparkle', job: '100% Mascot'))
+        expect:
+            repository.findByNameContainingIgnoreCase('r_s', Sort.unsorted())*.employee_id == [10]
+            repository.findByJobStartingWithOrNameIsNull('100%')*.employee_id == [10]
+            repository.findByJobStartingWithOrNameIsNull('1%').isEmpty()
+    }
+
+    def "non unique single result"() {
+        given:
+            repository.save(new Employee(employee_id: 10, name: 'Ned Flanders', job: 'Astronaut'))
+        when:
+            repository.findByJob('Astronaut')
+        then:
+            thrown(IncorrectResultSizeDataAccessException)
+    }
+
+    def "paging"() {
+        when:
+            def page = repository.findByNameNot('Homer Simpson', PageRequest.of(0, 1, Sort.by('name')))
+        then:
+            page.content*.name == ['Marge Simpson']
+            page.totalElements == 2
+        when:
+            def slice = repository.findSliceByNameEndingWith('Simpson', PageRequest.of(0, 1, Sort.by('name')))
+        then:
+            slice.content*.name == ['Homer Simpson']
+            slice.hasNext()
+            !repository.findSliceByNameEndingWith('Simpson', PageRequest.of(1, 1, Sort.by('name'))).hasNext()
+    }
+
+    def "stream"() {
+        expect:
+            new TransactionTemplate(transactionManager).execute {
+                repository.streamByNameEndingWith('Simpson').withCloseable { it.map { it.job }.collect(Collectors.toSet()) }
+            } == ['Astronaut', 'Estate Agent'] as Set
+    }
+
+    def "count and exists"() {
+        expect:
+            repository.countByNameEndingWith('Simpson') == 2
+            repository.countByNameEndingWith('Simpson', year(1995)) == 2
+            repository.countByNameEndingWith('Gumble', year(1995)) == 0
+            repository.countByNameEndingWith('Gumble', year(1998)) == 1
+            repository.existsByJob('Astronaut')
+            !repository.existsByJob('Snow Plow Driver')
+            repository.existsByJob('Snow Plow Driver', year(1997))
+    }
+
+    def "projections"() {
+        when:
+            def jobs = repository.findJobsByNameEndingWithOrderByJobAsc('Simpson')
+        then:
+            jobs.every { it instanceof EmployeeJob }
+            jobs*.job == ['Astronaut', 'Estate Agent']
+            jobs*.from_date == [year(1998), year(1997)]
+        and:
+            repository.findJobDtoByJob('Snow Plow Driver', year(1997)).get() == new EmployeeJobDto('Homer Simpson', 'Snow Plow Driver')
+            !repository.findJobDtoByJob('Snow Plow Driver', now()).isPresent()
+            with(repository.findJobDtosByNameEndingWith('Simpson', PageRequest.of(0, 1, Sort.by('name')))) {
+                content == [new EmployeeJobDto('Homer Simpson', 'Astronaut')]
+                totalElements == 2
+            }
+            repository.findByNameEndingWithOrderByJobAsc('Simpson', EmployeeJobDto) == [
+                new EmployeeJobDto('Homer Simpson', 'Astronaut'), new EmployeeJobDto('Marge Simpson', 'Estate Agent')
+            ]
+            repository.findByNameEndingWithOrderByJobAsc('Simpson', EmployeeJob)*.job == ['Astronaut', 'Estate Agent']
+            repository.findByNameEndingWithOrderByJobAsc('Simpson', Employee) == [homerLatestJob(), repository.findById(2).get()]
+    }
+}
@@ -0,0 +1,57 @@
+package dev.claudio.jpatemporal.repository
+
+import dev.claudio.jpatemporal.BaseTestSpecification
+import dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions
+import dev.claudio.jpatemporal.domain.Employee
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.data.domain.PageRequest
+import org.springframework.data.domain.Sort
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+
+import javax.persistence.EntityManager
+
+class DetachHistoryReadsTest extends BaseTestSpecification {
+
+    @Autowired RepositoryWithDetachedHistoryReads repositoryWithDetachedHistoryReads
+    @Autowired PlatformTransactionManager transactionManager
+    @Autowired EntityManager entityManager
+
+    def "history reads don't grow the persistence context"() {
+        expect:
+            inTransaction {
+                def entities = repositoryWithDetachedHistoryReads.findAll(null, year(1997)) +
+                        repositoryWithDetachedHistoryReads.findAllById([1, 2], year(1996)) +
+                        repositoryWithDetachedHistoryReads.findAll(null, PageRequest.of(0, 2, Sort.by("name")), year(1995)).content +
+                        repositoryWithDetachedHistoryReads.findById(1, [year(1995), year(1997)]).values() +
+                        repositoryWithDetachedHistoryReads.findRevisions(1).content*.entity +
+                        repositoryWithDetachedHistoryReads.findRevision(2, 2).get().entity
+                assert entities.size() == 15
+                assert entities.every { !entityManager.contains(it) }
+                return true
+            }
+    }
+
+    def "history reads stay managed by default"() {
+        expect:
+            inTransaction {
+                def entities = repository.findAll(null, year(1997)) + repository.findRevisions(1).content*.entity
+                assert entities.size() == 8
+                assert entities.every { entityManager.contains(it) }
+                return true
+            }
+    }
+
+    def "detached history reads return the same data"() {
+        expect:
+            repositoryWithDetachedHistoryReads.findAll(null, year(1997)) as Set == repository.findAll(null, year(1997)) as Set
+            repositoryWithDetachedHistoryReads.findRevisions(1).content*.entity == repository.findRevisions(1).content*.entity
+    }
+
+    private <R> R inTransaction(Closure<R> closure) {
+        return new TransactionTemplate(transactionManager).execute { closure.call() }
+    }
+}
+
+@TemporalRepositoryOptions(detachHistoryReads = true)
+interface RepositoryWithDetachedHistoryReads extends TemporalRepository<Employee, Integer> { }
@@ -0,0 +1,116 @@
+package dev.claudio.jpatemporal.repository
+
+import dev.claudio.jpatemporal.BaseTestSpecification
+import dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions
+import dev.claudio.jpatemporal.domain.Employee
+import dev.claudio.jpatemporal.repository.impl.TemporalRepositoryImpl
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.test.util.AopTestUtils
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+
+import javax.persistence.EntityManager
+import java.time.Duration
+
+class FindCurrentStateCacheTest extends BaseTestSpecification {
+
+    @Autowired RepositoryWithCurrentStateCache repositoryWithCurrentStateCache
+    @Autowired PlatformTransactionManager transactionManager
+    @Autowired EntityManager entityManager
+
+    def setup() {
+        // Resets the cache as the rows are recreated for every test
+        AopTestUtils.<TemporalRepositoryImpl> getUltimateTargetObject(repositoryWithCurrentStateCache).setCurrentStateCache(100, Duration.ofHours(1))
+    }
+
+    def "findById is served from the cache"() {
+        expect:
+            repositoryWithCurrentStateCache.findById(1).get() == homerLatestJob()
+            !repositoryWithCurrentStateCache.existsById(10)
+        when: 'rows are changed behind the repository'
+            repositoryJpa.deleteAll()
+            repositoryJpa.save(new Employee(employee_id: 10, name: 'Ned Flanders', job: 'Leftorium Owner', from_date: year(1995), to_date: MAX_INSTANT))
+        then:
+            repository.findById(1).isEmpty()
+            repositoryWithCurrentStateCache.findById(1).get() == homerLatestJob()
+            !repositoryWithCurrentStateCache.existsById(10)
+    }
+
+    def "findById returns detached copies whether the row is cached or not"() {
+        when:
+            def managed = new TransactionTemplate(transactionManager).execute {
+                def missed = repositoryWithCurrentStateCache.findById(1).get()
+                def hit = repositoryWithCurrentStateCache.findById(1).get()
+                repositoryWithCurrentStateCache.save(new Employee(employee_id: 1, name: 'Homer Simpson', job: 'Bowling Alley Owner'))
+                def written = repositoryWithCurrentStateCache.findById(1).get()
+                return [missed, hit, written].collect { entityManager.contains(it) }
+            }
+        then:
+            managed == [false, false, false]
+    }
+
+    def "the cache requires entries to expire"() {
+        when:
+            AopTestUtils.<TemporalRepositoryImpl> getUltimateTargetObject(repositoryWithCurrentStateCache).setCurrentStateCache(100, Duration.ZERO)
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    def "saves compare with the current row rather than a stale cache entry"() {
+        given:
+            assert repositoryWithCurrentStateCache.findById(1).get() == homerLatestJob()
+        when: 'the current row is changed behind the repository'
+            repositoryJpa.save(homerLatestJob().tap { job = 'Bowling Alley Owner' })
+            repositoryWithCurrentStateCache.save(new Employee(employee_id: 1, name: 'Homer Simpson', job: 'Astronaut'))
+        then:
+            repositoryJpa.count() == 10
+            repository.findById(1).get().job == 'Astronaut'
+    }
+
+    def "saves and deletes invalidate the cache"() {
+        given:
+            def homer = new Employee(employee_id: 1, name: 'Homer Simpson', job: 'Bowling Alley Owner')
+        expect:
+            repositoryWithCurrentStateCache.findById(1).get().job == 'Astronaut'
+            repositoryWithCurrentStateCache.findById(2).get().job == 'Estate Agent'
+        when:
+            repositoryWithCurrentStateCache.save(homer)
+        then:
+            repositoryWithCurrentStateCache.findById(1).get().job == 'Bowling Alley Owner'
+        when:
+            repositoryWithCurrentStateCache.deleteAllByIdInBatch([2])
+        then:
+            !repositoryWithCurrentStateCache.existsById(2)
+        when:
+            repositoryWithCurrentStateCache.deleteAllInBatch()
+        then:
+            !repositoryWithCurrentStateCache.existsById(1)
+    }
+
+    def "reads within a writing transaction see its writes"() {
+        when:
+            def jobs = new TransactionTemplate(transactionManager).execute {
+                def before = repositoryWithCurrentStateCache.findById(1).get().job
+                repositoryWithCurrentStateCache.save(new Employee(employee_id: 1, name: 'Homer Simpson', job: 'Bowling Alley Owner'))
+                return [before, repositoryWithCurrentStateCache.findById(1).get().job]
+            }
+        then:
+            jobs == ['Astronaut', 'Bowling Alley Owner']
+            repositoryWithCurrentStateCache.findById(1).get().job == 'Bowling Alley Owner'
+    }
+
+    def "rolled back writes invalidate the cache"() {
+        given:
+            repositoryWithCurrentStateCache.findById(1)
+        when:
+            new TransactionTemplate(transactionManager).execute { status ->
+                repositoryWithCurrentStateCache.save(new Employee(employee_id: 1, name: 'Homer Simpson', job: 'Bowling Alley Owner'))
+                status.setRollbackOnly()
+            }
+        then:
+            repositoryWithCurrentStateCache.findById(1).get().job == 'Astronaut'
+    }
+}
+
+@TemporalRepositoryOptions(currentStateCacheSize = 100)
+interface RepositoryWithCurrentStateCache extends TemporalRepository<Employee, Integer> { }
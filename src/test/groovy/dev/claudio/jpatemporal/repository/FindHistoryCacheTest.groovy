@@ -0,0 +1,66 @@
+package dev.claudio.jpatemporal.repository
+
+import dev.claudio.jpatemporal.BaseTestSpecification
+import dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions
+import dev.claudio.jpatemporal.domain.Employee
+import org.springframework.beans.factory.annotation.Autowired
+
+import javax.persistence.EntityManager
+import java.time.Instant
+
+class FindHistoryCacheTest extends BaseTestSpecification {
+
+    @Autowired RepositoryWithHistoryCache repositoryWithHistoryCache
+    @Autowired EntityManager entityManager
+
+    def "findById as of a past instant is served from the history cache"() {
+        given:
+            def asOf = year(1996).plusSeconds(1)
+            def expected = new Employee(temporal_id: 5, employee_id: 1, name: 'Homer Simpson', job: 'Nuclear Safety Inspector', from_date: year(1996), to_date: year(1997))
+        expect:
+            repositoryWithHistoryCache.findById(1, asOf).get() == expected
+        when: 'rows are removed behind the repository'
+            repositoryJpa.deleteAll()
+        then:
+            repository.findById(1, asOf).isEmpty()
+            repositoryWithHistoryCache.findById(1, asOf).get() == expected
+    }
+
+    def "findAllById caches absent rows and reads only the misses"() {
+        given:
+            def asOf = year(1997).plusSeconds(2)
+        expect:
+            repositoryWithHistoryCache.findAllById([1, 10], asOf)*.job == ['Snow Plow Driver']
+        when:
+            repositoryJpa.deleteAll()
+            repositoryJpa.saveAll(simpsonsEmployees())
+            repositoryJpa.save(new Employee(employee_id: 10, name: 'Ned Flanders', job: 'Leftorium Owner', from_date: year(1995), to_date: MAX_INSTANT))
+        then:
+            repositoryWithHistoryCache.findAllById([1, 2, 10], asOf)*.job as Set == ['Snow Plow Driver', 'Estate Agent'] as Set
+    }
+
+    def "cached entities are detached copies"() {
+        given:
+            def asOf = year(1995).plusSeconds(3)
+            def first = repositoryWithHistoryCache.findById(3, asOf).get()
+        when:
+            first.job = 'Janitor'
+        then:
+            !entityManager.contains(first)
+            repositoryWithHistoryCache.findById(3, asOf).get().job == 'School Principal'
+    }
+
+    def "reads within the safety horizon aren't cached"() {
+        given:
+            def asOf = Instant.now()
+        expect:
+            repositoryWithHistoryCache.findById(1, asOf).get().job == 'Astronaut'
+        when:
+            repositoryJpa.deleteAll()
+        then:
+            repositoryWithHistoryCache.findById(1, asOf).isEmpty()
+    }
+}
+
+@TemporalRepositoryOptions(historyCacheSize = 100, historyCacheSafetyHorizonSeconds = 86400L)
+interface RepositoryWithHistoryCache extends TemporalRepository<Employee, Integer> { }
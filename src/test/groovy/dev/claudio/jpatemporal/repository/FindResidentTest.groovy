@@ -0,0 +1,83 @@
+package dev.claudio.jpatemporal.repository
+
+import dev.claudio.jpatemporal.BaseTestSpecification
+import dev.claudio.jpatemporal.annotation.TemporalRepositoryOptions
+import dev.claudio.jpatemporal.domain.Employee
+import dev.claudio.jpatemporal.repository.impl.TemporalRepositoryImpl
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.test.util.AopTestUtils
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+
+import java.time.Duration
+import java.time.Instant
+
+class FindResidentTest extends BaseTestSpecification {
+
+    @Autowired ResidentRepository residentRepository
+    @Autowired PlatformTransactionManager transactionManager
+
+    def setup() {
+        // Resets the index as the rows are recreated for every test
+        AopTestUtils.<TemporalRepositoryImpl> getUltimateTargetObject(residentRepository).setResidentIndex(true, Duration.ofHours(1), Duration.ofSeconds(300))
+    }
+
+    def "as-of reads match the database"() {
+        expect:
+            [year(1994), year(1995), year(1996), year(1997), year(1998), year(1999), Instant.now(), MAX_INSTANT].each { instant ->
+                assert residentRepository.findAllById([1, 2, 3, 4, 5], instant).sort { it.employee_id } == repository.findAllById([1, 2, 3, 4, 5], instant).sort { it.employee_id }
+                assert residentRepository.findAll(instant).sort { it.employee_id } == repository.findAll(instant).sort { it.employee_id }
+                assert residentRepository.count(instant) == repository.count(instant)
+            }
+            residentRepository.findById(1, year(1997)).get().job == 'Snow Plow Driver'
+            residentRepository.findById(1, MAX_INSTANT).get() == homerLatestJob()
+            !residentRepository.findById(4, year(1999)).isPresent()
+    }
+
+    def "rows changed behind the repository are only seen once reloaded"() {
+        given:
+            residentRepository.count(year(1998))
+        when:
+            repositoryJpa.save(new Employee(employee_id: 10, name: 'Ned Flanders', job: 'Leftorium Owner', from_date: year(1995), to_date: MAX_INSTANT))
+        then:
+            repository.count(year(1998)) == 5
+            residentRepository.count(year(1998)) == 4
+            !residentRepository.findById(10, year(1998)).isPresent()
+        when: 'the index is recreated'
+            AopTestUtils.<TemporalRepositoryImpl> getUltimateTargetObject(residentRepository).setResidentIndex(true, Duration.ofHours(1), Duration.ofSeconds(300))
+        then:
+            residentRepository.count(year(1998)) == 5
+            residentRepository.findById(10, year(1998)).get().name == 'Ned Flanders'
+    }
+
+    def "writes through the repository are seen once committed"() {
+        given:
+            residentRepository.count(Instant.now())
+        when:
+            residentRepository.save(new Employee(employee_id: 1, name: 'Homer Simpson', job: 'Bowling Alley Owner'))
+            residentRepository.deleteById(2)
+            def now = Instant.now()
+        then:
+            residentRepository.findById(1, now).get().job == 'Bowling Alley Owner'
+            residentRepository.findById(1, year(1998)).get().job == 'Astronaut'
+            !residentRepository.findById(2, now).isPresent()
+            residentRepository.findById(2, year(1998)).get().job == 'Estate Agent'
+            residentRepository.count(now) == 2
+            residentRepository.findAll(now).sort { it.employee_id } == repository.findAll(now).sort { it.employee_id }
+    }
+
+    def "reads within a writing transaction see its writes"() {
+        when:
+            def jobs = new TransactionTemplate(transactionManager).execute {
+                def before = residentRepository.findById(1, MAX_INSTANT).get().job
+                residentRepository.save(new Employee(employee_id: 1, name: 'Homer Simpson', job: 'Bowling Alley Owner'))
+                return [before, residentRepository.findById(1, MAX_INSTANT).get().job]
+            }
+        then:
+            jobs == ['Astronaut', 'Bowling Alley Owner']
+            residentRepository.findById(1, MAX_INSTANT).get().job == 'Bowling Alley Owner'
+    }
+}
+
+@TemporalRepositoryOptions(resident = true)
+interface ResidentRepository extends TemporalRepository<Employee, Integer> { }
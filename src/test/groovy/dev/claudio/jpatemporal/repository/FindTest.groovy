@@ -7,6 +7,9 @@ import dev.claudio.jpatemporal.BaseTestSpecification
 import dev.claudio.jpatemporal.domain.Employee
 import org.springframework.dao.IncorrectResultSizeDataAccessException
 import org.springframework.data.domain.Example
+import org.springframework.data.domain.PageRequest
+import org.springframework.data.domain.Pageable
+import org.springframework.data.domain.Sort
 import org.springframework.data.jpa.domain.Specification
 import org.springframework.orm.jpa.JpaObjectRetrievalFailureException
 
@@ -159,4 +162,80 @@ class FindTest extends BaseTestSpecification {
         then:
             thrown(IncorrectResultSizeDataAccessException)
     }
+
+    def "findById at many instants"() {
+        given:
+            def homer1995 = new Employee(temporal_id: 1, employee_id: 1, name: 'Homer Simpson', job: 'Nuclear Technician', from_date: year(1995), to_date: year(1996))
+            def homer1997 = new Employee(temporal_id: 8, employee_id: 1, name: 'Homer Simpson', job: 'Snow Plow Driver', from_date: year(1997), to_date: year(1998))
+            def instants = [now(), year(1990), year(1995), year(1995).plusSeconds(1), year(1997), year(1997)]
+        when:
+            def entities = repository.findById(1, instants)
+        then:
+            entities.keySet() as List == [year(1995), year(1995).plusSeconds(1), year(1997), instants[0]]
+            entities[year(1995)] == homer1995
+            entities[year(1995).plusSeconds(1)] == homer1995
+            entities[year(1997)] == homer1997
+            entities[instants[0]] == homerLatestJob()
+        and:
+            repository.findById(1, [year(1990)]).isEmpty()
+            repository.findById(5, [year(1997)]).isEmpty()
+            repository.findById(1, []).isEmpty()
+            repository.findById(1, [year(1998), year(1996)]).values()*.temporal_id == [5, 9]
+    }
+
+    def "findAllById at many instants"() {
+        when:
+            def entities = repository.findAllById([1, 2, 3, 4, 5], [year(1996), year(1998), year(1999)])
+        then:
+            entities.keySet() == [1, 2, 3, 4] as Set
+            entities[1].collectEntries { [(it.key): it.value.temporal_id] } == [(year(1996)): 5, (year(1998)): 9, (year(1999)): 9]
+            entities[2].collectEntries { [(it.key): it.value.temporal_id] } == [(year(1996)): 4, (year(1998)): 6, (year(1999)): 6]
+            entities[3].collectEntries { [(it.key): it.value.temporal_id] } == [(year(1996)): 3, (year(1998)): 3, (year(1999)): 3]
+            entities[4].collectEntries { [(it.key): it.value.temporal_id] } == [(year(1998)): 7]
+    }
+
+    def "findAll sorted as of instant"() {
+        expect:
+            repository.findAll(null, Sort.by("name"), year(1997))*.temporal_id == [7, 8, 6, 3]
+            repository.findAll(null, Sort.by(Sort.Direction.DESC, "job"), year(1997))*.temporal_id == [8, 3, 7, 6]
+            repository.findAll((root, _, cb) -> cb.like(root.get("name"), '%Simpson'), Sort.by("job"), year(1996))*.temporal_id == [4, 5]
+    }
+
+    def "findAll paged as of instant"() {
+        when:
+            def firstPage = repository.findAll(null, PageRequest.of(0, 3, Sort.by("name")), year(1997))
+            def lastPage = repository.findAll(null, PageRequest.of(1, 3, Sort.by("name")), year(1997))
+            def unpaged = repository.findAll(null, Pageable.unpaged(), year(1997))
+        then:
+            firstPage.content*.temporal_id == [7, 8, 6]
+            firstPage.totalElements == 4
+            firstPage.hasNext()
+            lastPage.content*.temporal_id == [3]
+            lastPage.totalElements == 4
+            !lastPage.hasNext()
+            unpaged.content*.temporal_id as Set == [3, 6, 7, 8] as Set
+    }
+
+    def "findAllAfter seeks past the last seen entity"() {
+        when:
+            def ascending = Sort.by("from_date")
+            def firstSlice = repository.findAllAfter(null, ascending, null, 2, year(1997))
+            def secondSlice = repository.findAllAfter(null, ascending, firstSlice.content.last(), 2, year(1997))
+        then:
+            firstSlice.content*.temporal_id == [3, 6]
+            firstSlice.hasNext()
+            secondSlice.content*.temporal_id == [7, 8]
+            !secondSlice.hasNext()
+        when:
+            def descending = Sort.by(Sort.Direction.DESC, "from_date")
+            firstSlice = repository.findAllAfter(null, descending, null, 3, year(1997))
+            secondSlice = repository.findAllAfter(null, descending, firstSlice.content.last(), 3, year(1997))
+        then:
+            firstSlice.content*.temporal_id == [6, 7, 8]
+            firstSlice.hasNext()
+            secondSlice.content*.temporal_id == [3]
+            !secondSlice.hasNext()
+        and:
+            repository.findAllAfter((root, _, cb) -> cb.like(root.get("name"), '%Simpson'), Sort.by("name"), homerLatestJob(), 10, now())*.temporal_id == [6]
+    }
 }
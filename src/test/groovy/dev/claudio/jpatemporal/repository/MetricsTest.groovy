@@ -0,0 +1,115 @@
+package dev.claudio.jpatemporal.repository
+
+import dev.claudio.jpatemporal.BaseTestSpecification
+import dev.claudio.jpatemporal.domain.Employee
+import io.micrometer.core.instrument.MeterRegistry
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.data.domain.PageRequest
+
+import static dev.claudio.jpatemporal.metrics.MicrometerTemporalRepositoryMetrics.*
+
+class MetricsTest extends BaseTestSpecification {
+
+    @Autowired MeterRegistry meterRegistry
+
+    def setup() {
+        meterRegistry.clear()
+    }
+
+    def "saveAll reports rows closed, inserted and skipped"() {
+        when:
+            repository.saveAll([
+                homerLatestJob(),
+                new Employee(employee_id: 2, name: 'Marge Simpson', job: 'Police Officer'),
+                new Employee(employee_id: 10, name: 'Ned Flanders', job: 'Leftorium Owner')
+            ])
+        then:
+            counter(ROWS_CLOSED_COUNTER) == 1
+            counter(ROWS_INSERTED_COUNTER) == 2
+            counter(SKIPPED_SAVES_COUNTER) == 1
+            timerCount('saveAll') == 1
+            meterRegistry.find(IN_LIST_SIZE_SUMMARY).tag(TAG_ENTITY, 'Employee').summary().count() == 2
+            meterRegistry.find(IN_LIST_SIZE_SUMMARY).tag(TAG_ENTITY, 'Employee').summary().totalAmount() == 5
+    }
+
+    def "save of an unchanged entity is reported as skipped"() {
+        when:
+            repository.save(skinnerLatestJob())
+        then:
+            counter(SKIPPED_SAVES_COUNTER) == 1
+            counter(ROWS_INSERTED_COUNTER) == 0
+            timerCount('save') == 1
+    }
+
+    def "deletes report rows closed"() {
+        when:
+            repository.deleteAllInBatch()
+        then:
+            counter(ROWS_CLOSED_COUNTER) == 3
+            timerCount('delete') == 1
+    }
+
+    def "updates are timed apart from saves"() {
+        when:
+            repository.update((root, _, cb) -> cb.like(root.get("name"), '%Simpson'), [job: 'Unemployed'])
+        then:
+            timerCount('update') == 1
+            timerCount('saveAll') == 0
+            counter(ROWS_CLOSED_COUNTER) == 2
+            counter(ROWS_INSERTED_COUNTER) == 2
+    }
+
+    def "finders are timed"() {
+        when:
+            repository.findAll(year(1997))
+            repository.findById(1, year(1997))
+            repository.count(year(1997))
+            repository.findRevisions(1)
+        then:
+            timerCount('findAll') == 1
+            timerCount('findAllById') == 1
+            timerCount('count') == 1
+            timerCount('findRevisions') == 1
+    }
+
+    def "current row reads are timed"() {
+        when:
+            repository.findAll()
+            repository.count()
+            repository.existsById(1)
+            repository.findById(1)
+        then:
+            timerCount('findAll') == 1
+            timerCount('count') == 1
+            timerCount('exists') == 1
+            timerCount('findAllById') == 1
+    }
+
+    def "revision lookups are timed"() {
+        when:
+            repository.findLastChangeRevision(1)
+            repository.findRevisions(1, PageRequest.of(0, 2))
+            repository.findRevision(1, 2)
+        then:
+            timerCount('findRevisions') == 3
+    }
+
+    def "meters are registered again once removed from the registry"() {
+        given:
+            repository.count()
+            assert timerCount('count') == 1
+        when:
+            meterRegistry.clear()
+            repository.count()
+        then:
+            timerCount('count') == 1
+    }
+
+    private double counter(String name) {
+        return meterRegistry.find(name).tag(TAG_ENTITY, 'Employee').counters().sum { it.count() } ?: 0
+    }
+
+    private long timerCount(String operation) {
+        return meterRegistry.find(OPERATION_TIMER).tags(TAG_ENTITY, 'Employee', TAG_OPERATION, operation).timer()?.count() ?: 0
+    }
+}
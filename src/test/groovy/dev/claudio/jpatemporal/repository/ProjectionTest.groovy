@@ -0,0 +1,67 @@
+package dev.claudio.jpatemporal.repository
+
+
+import dev.claudio.jpatemporal.BaseTestSpecification
+import dev.claudio.jpatemporal.domain.Employee
+import dev.claudio.jpatemporal.domain.EmployeeJob
+import dev.claudio.jpatemporal.domain.EmployeeJobDto
+import org.springframework.beans.factory.annotation.Value
+
+import static java.time.Instant.now
+
+class ProjectionTest extends BaseTestSpecification {
+
+    def "findAll as of instant - Interface projection"() {
+        when:
+            def jobs = repository.findAll(null, year(1997), EmployeeJob)
+        then:
+            jobs.collect { [it.name, it.job, it.from_date] } as Set == [
+                ['Homer Simpson', 'Snow Plow Driver', year(1997)],
+                ['Marge Simpson', 'Estate Agent', year(1997)],
+                ['Seymour Skinner', 'School Principal', year(1995)],
+                ['Barney Gumble', 'Human Guinea Pig', year(1997)],
+            ] as Set
+    }
+
+    def "findAll as of instant - DTO projection"() {
+        expect:
+            repository.findAll((root, _, cb) -> cb.like(root.get("name"), '%Simpson'), now(), EmployeeJobDto) as Set == [
+                new EmployeeJobDto('Homer Simpson', 'Astronaut'),
+                new EmployeeJobDto('Marge Simpson', 'Estate Agent'),
+            ] as Set
+    }
+
+    def "findAll as of instant - Open projection and domain class"() {
+        expect:
+            repository.findAll(null, now(), EmployeeSummary)*.summary as Set == ['Homer Simpson: Astronaut', 'Marge Simpson: Estate Agent', 'Seymour Skinner: School Principal'] as Set
+            repository.findAll(null, now(), Employee) as Set == [homerLatestJob(), margeLatestJob(), skinnerLatestJob()] as Set
+    }
+
+    def "findAllById as of instant"() {
+        expect:
+            repository.findAllById([1, 2, 5], year(1996), EmployeeJobDto) as Set == [
+                new EmployeeJobDto('Homer Simpson', 'Nuclear Safety Inspector'),
+                new EmployeeJobDto('Marge Simpson', 'Bakery Owner'),
+            ] as Set
+            repository.findAllById([2], null, EmployeeJobDto)*.job as Set == ['Pretzel Cart Saleswoman', 'Bakery Owner', 'Estate Agent'] as Set
+    }
+
+    def "findAllBetween"() {
+        expect:
+            repository.findAllBetween(null, year(1996), year(1997), EmployeeJobDto)*.job == ['School Principal', 'Bakery Owner', 'Nuclear Safety Inspector']
+            repository.findAllBetween((root, _, cb) -> cb.equal(root.get("employee_id"), 1), year(1996), year(1998).plusSeconds(1), EmployeeJob)*.job == [
+                'Nuclear Safety Inspector', 'Snow Plow Driver', 'Astronaut'
+            ]
+    }
+
+    def "findRevisions"() {
+        expect:
+            repository.findRevisions(1, EmployeeJob)*.job == ['Nuclear Technician', 'Nuclear Safety Inspector', 'Snow Plow Driver', 'Astronaut']
+            repository.findRevisions(5, EmployeeJobDto).isEmpty()
+    }
+}
+
+interface EmployeeSummary {
+    @Value("#{target.name + ': ' + target.job}")
+    String getSummary()
+}
@@ -0,0 +1,69 @@
+package dev.claudio.jpatemporal.repository
+
+import dev.claudio.jpatemporal.BaseTestSpecification
+import dev.claudio.jpatemporal.domain.Employee
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+
+import java.time.Instant
+import java.util.stream.Collectors
+import java.util.stream.Stream
+
+class RevisionDiffTest extends BaseTestSpecification {
+
+    @Autowired PlatformTransactionManager transactionManager
+
+    def "findRevisionDiffs for an id"() {
+        expect:
+            diffs { repository.findRevisionDiffs(1) } == [
+                    [1, year(1996), [job: ['Nuclear Technician', 'Nuclear Safety Inspector']]],
+                    [1, year(1997), [job: ['Nuclear Safety Inspector', 'Snow Plow Driver']]],
+                    [1, year(1998), [job: ['Snow Plow Driver', 'Astronaut']]],
+            ]
+            diffs { repository.findRevisionDiffs(3) }.isEmpty()
+            diffs { repository.findRevisionDiffs(5) }.isEmpty()
+    }
+
+    def "findRevisionDiffs skips revisions without changes"() {
+        given:
+            repository.save(margeLatestJob().tap { from_date = null; to_date = null; temporal_id = null }, SaveMode.BLIND)
+            repository.save(margeLatestJob().tap { from_date = null; to_date = null; temporal_id = null; name = 'Marge Bouvier'; job = 'Police Officer' })
+        when:
+            def diffs = diffs { repository.findRevisionDiffs(2) }
+        then:
+            repository.findRevisions(2).content.size() == 5
+            diffs*.take(1) == [[2], [2], [2]]
+            diffs.last()[2] == [job: ['Estate Agent', 'Police Officer'], name: ['Marge Simpson', 'Marge Bouvier']]
+    }
+
+    def "findRevisionDiffs doesn't pair rows across a delete"() {
+        given:
+            repository.save(new Employee(employee_id: 4, name: 'Barney Gumble', job: 'Astronaut'))
+        expect:
+            repository.findRevisions(4).content.size() == 2
+            diffs { repository.findRevisionDiffs(4) }.isEmpty()
+            diffs { repository.findRevisionDiffs(year(1995), Instant.now()) }.every { it[0] != 4 }
+    }
+
+    def "findRevisionDiffs for an interval"() {
+        expect:
+            diffs { repository.findRevisionDiffs(year(1995), year(1997)) } == [
+                    [1, year(1996), [job: ['Nuclear Technician', 'Nuclear Safety Inspector']]],
+                    [1, year(1997), [job: ['Nuclear Safety Inspector', 'Snow Plow Driver']]],
+                    [2, year(1996), [job: ['Pretzel Cart Saleswoman', 'Bakery Owner']]],
+                    [2, year(1997), [job: ['Bakery Owner', 'Estate Agent']]],
+            ]
+            diffs { repository.findRevisionDiffs(year(1996), year(1997)) }*.take(2) == [[1, year(1997)], [2, year(1997)]]
+            diffs { repository.findRevisionDiffs(year(1997), year(1999)) }*.take(2) == [[1, year(1998)]]
+            diffs { repository.findRevisionDiffs(year(1999), Instant.now()) }.isEmpty()
+    }
+
+    private List<List<Object>> diffs(Closure<Stream<RevisionDiff<Integer>>> query) {
+        return new TransactionTemplate(transactionManager).execute {
+            query.call().withCloseable {
+                it.map { [it.id, it.changedAt, it.changes.collectEntries { [(it.key): [it.value.oldValue, it.value.newValue]] }] }.collect(Collectors.toList())
+            }
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package dev.claudio.jpatemporal.repository
 
 import dev.claudio.jpatemporal.BaseTestSpecification
+import dev.claudio.jpatemporal.StatementCounter
 import dev.claudio.jpatemporal.domain.Employee
 import dev.claudio.jpatemporal.repository.impl.RevisionMetadataImpl
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.data.domain.Page
+import org.springframework.data.domain.PageRequest
 import org.springframework.data.domain.Pageable
 import org.springframework.data.history.Revision
+import org.springframework.data.history.RevisionSort
 import org.springframework.data.history.Revisions
 
 class RevisionTest extends BaseTestSpecification {
 
+    @Autowired StatementCounter statementCounter
+
     def "findLastChangeRevision - missing"() {
         expect:
             repository.findLastChangeRevision(0).isEmpty()
@@ -30,6 +37,25 @@ class RevisionTest extends BaseTestSpecification {
             homerLastRevision.getRevisionInstant().get() == year(1998)
     }
 
+    def "findLastChangeRevision - a single query"() {
+        given:
+            statementCounter.clear()
+        when:
+            repository.findLastChangeRevision(1)
+        then:
+            statementCounter.count('select') == 1
+    }
+
+    def "revisions starting at the same instant are ordered by temporal id"() {
+        given: 'a zero-length row, as left by two saves of a key within the same instant'
+            def zeroLength = repositoryJpa.save(new Employee(employee_id: 3, name: 'Seymour Skinner', job: 'Substitute Teacher', from_date: year(1995), to_date: year(1995)))
+        expect:
+            repository.findRevisions(3).content*.entity*.temporal_id == [3, zeroLength.temporal_id]
+            repository.findRevisions(3, PageRequest.of(0, 1)).content*.entity*.temporal_id == [3]
+            repository.findRevisions(3, PageRequest.of(1, 1)).content*.entity*.temporal_id == [zeroLength.temporal_id]
+            repository.findLastChangeRevision(3).get().entity.temporal_id == zeroLength.temporal_id
+    }
+
     def "findRevisions - missing"() {
         expect:
             repository.findRevisions(0).content.size() == 0
@@ -121,10 +147,77 @@ class RevisionTest extends BaseTestSpecification {
             homerRevision3.revisionInstant.get() == year(1997)
     }
 
-    def "findRevisions pageable - UnsupportedOperationException"() {
+    def "findRevisions pageable - missing"() {
+        expect:
+            repository.findRevisions(0, PageRequest.of(0, 2)).content.isEmpty()
+            repository.findRevisions(0, PageRequest.of(0, 2)).totalElements == 0
+            repository.findRevisions(100, Pageable.unpaged()).content.isEmpty()
+    }
+
+    def "findRevisions pageable"() {
+        when:
+            Page<Revision<Integer, Employee>> firstPage = repository.findRevisions(1, PageRequest.of(0, 3))
+        then:
+            firstPage.totalElements == 4
+            firstPage.totalPages == 2
+            firstPage.content*.revisionNumber*.get() == [1, 2, 3]
+            firstPage.content*.entity*.job == ['Nuclear Technician', 'Nuclear Safety Inspector', 'Snow Plow Driver']
+            firstPage.content*.revisionInstant*.get() == [year(1995), year(1996), year(1997)]
+        when:
+            Page<Revision<Integer, Employee>> secondPage = repository.findRevisions(1, PageRequest.of(1, 3))
+        then:
+            secondPage.totalElements == 4
+            secondPage.content.size() == 1
+            secondPage.content[0].revisionNumber.get() == 4
+            secondPage.content[0].entity == homerLatestJob()
+        when:
+            Page<Revision<Integer, Employee>> unpaged = repository.findRevisions(1, Pageable.unpaged())
+        then:
+            unpaged.content == repository.findRevisions(1).content
+    }
+
+    def "findRevisions pageable - descending"() {
+        when:
+            Page<Revision<Integer, Employee>> firstPage = repository.findRevisions(1, PageRequest.of(0, 3, RevisionSort.desc()))
+        then:
+            firstPage.totalElements == 4
+            firstPage.content*.revisionNumber*.get() == [4, 3, 2]
+            firstPage.content[0].entity == homerLatestJob()
+        when:
+            Page<Revision<Integer, Employee>> secondPage = repository.findRevisions(1, PageRequest.of(1, 3, RevisionSort.desc()))
+        then:
+            secondPage.content*.revisionNumber*.get() == [1]
+            secondPage.content[0].entity.job == 'Nuclear Technician'
+    }
+
+    def "findRevisions for many ids"() {
+        when:
+            def revisionsById = repository.findRevisions([1, 2, 3, 4, 5])
+        then:
+            revisionsById.keySet() == [1, 2, 3, 4] as Set
+            [1, 2, 3, 4].every { id ->
+                revisionsById[id].content*.entity == repository.findRevisions(id).content*.entity
+                        && revisionsById[id].content*.requiredRevisionNumber == repository.findRevisions(id).content*.requiredRevisionNumber
+            }
+            repository.findRevisions([]).isEmpty()
+    }
+
+    def "findRevisions for many ids within a time window"() {
         when:
-            repository.findRevisions(0, Mock(Pageable))
+            def within1996 = repository.findRevisions([1, 2, 3, 4], year(1996), year(1997))
+            def since1997 = repository.findRevisions([1, 2, 3, 4], year(1997), null)
         then:
-            thrown(UnsupportedOperationException)
+            within1996.collectEntries { [(it.key): it.value.content.collect { [it.requiredRevisionNumber, it.entity.temporal_id] }] } == [
+                    1: [[2, 5]],
+                    2: [[2, 4]],
+                    3: [[1, 3]],
+            ]
+            since1997.collectEntries { [(it.key): it.value.content.collect { [it.requiredRevisionNumber, it.entity.temporal_id] }] } == [
+                    1: [[3, 8], [4, 9]],
+                    2: [[3, 6]],
+                    3: [[1, 3]],
+                    4: [[1, 7]],
+            ]
+            repository.findRevisions([1], null, year(1996))[1].content*.entity*.temporal_id == [1]
     }
 }
@@ -184,6 +184,71 @@ class SaveTest extends BaseTestSpecification {
             assertTemporalAttributesAreSame(margeOriginal, saved2)
     }
 
+    def "save - BLIND save mode creates a revision even without change"() {
+        given:
+            assert repository.findRevisions(1).content.size() == 4
+        when:
+            def saved = repository.save(homerLatestJob().tap {from_date = null}, SaveMode.BLIND)
+        then:
+            assertCurrentEmployee(saved, 1, 'Homer Simpson', 'Astronaut')
+            saved.temporal_id != homerLatestJob().temporal_id
+            repository.findById(1).get() == saved
+            repository.findRevisions(1).content.size() == 5
+            repository.count() == 3
+    }
+
+    def "save - BLIND save mode with null UniqueKey"() {
+        when:
+            repository.save(bartJob().tap {employee_id = null }, SaveMode.BLIND)
+        then:
+            thrown(JpaSystemException)
+    }
+
+    def "saveAll - BLIND save mode"() {
+        when:
+            def savedList = repository.saveAll([
+                bartJob(), // New entity
+                margeLatestJob().tap {from_date = null; to_date = null; temporal_id = null} // existing entity, no change
+            ], SaveMode.BLIND)
+        then:
+            def saved2 = repository.findById(2).get()
+            def saved5 = repository.findById(5).get()
+            savedList as Set == [saved2, saved5] as Set
+        and:
+            assertCurrentEmployee(saved2, 2, 'Marge Simpson', 'Estate Agent')
+            assertCurrentEmployee(saved5, 5, 'Bart Simpson', 'Student')
+            repository.findRevisions(2).content.size() == 4
+            repository.count() == 4
+    }
+
+    def "update - Update entities matching a specification"() {
+        when:
+            def updated = repository.update((root, _, cb) -> cb.like(root.get("name"), '%Simpson'), [job: 'Unemployed'])
+        then:
+            updated == 2
+            assertCurrentEmployee(repository.findById(1).get(), 1, 'Homer Simpson', 'Unemployed')
+            assertCurrentEmployee(repository.findById(2).get(), 2, 'Marge Simpson', 'Unemployed')
+            repository.findById(3).get() == skinnerLatestJob()
+            repository.findById(1, repository.findById(1).get().from_date.minusNanos(1000)).get().job == 'Astronaut'
+            repository.findRevisions(1).content.size() == 5
+            repository.count() == 3
+            repositoryJpa.count() == 11
+    }
+
+    def "update - No matching entity"() {
+        expect:
+            repository.update((root, _, cb) -> cb.equal(root.get("employee_id"), 4), [job: 'Bartender']) == 0
+            repositoryJpa.count() == 9
+    }
+
+    def "update - Temporal attributes can't be assigned"() {
+        when:
+            repository.update(null, [employee_id: 10])
+        then:
+            thrown(InvalidDataAccessApiUsageException)
+            repositoryJpa.count() == 9
+    }
+
     boolean assertCurrentEmployee(employee, employee_id, name, job) {
         assert employee.employee_id == employee_id
         assert employee.name == name
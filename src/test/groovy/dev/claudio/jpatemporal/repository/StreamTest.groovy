@@ -0,0 +1,52 @@
+package dev.claudio.jpatemporal.repository
+
+import dev.claudio.jpatemporal.BaseTestSpecification
+import dev.claudio.jpatemporal.domain.Employee
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.data.jpa.domain.Specification
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+
+import javax.persistence.EntityManager
+import java.util.stream.Collectors
+
+class StreamTest extends BaseTestSpecification {
+
+    @Autowired PlatformTransactionManager transactionManager
+    @Autowired EntityManager entityManager
+
+    def "streamAll"() {
+        expect:
+            inTransaction { repository.streamAll(MAX_INSTANT).withCloseable { it.collect(Collectors.toSet()) } } == [homerLatestJob(), margeLatestJob(), skinnerLatestJob()] as Set
+            inTransaction { repository.streamAll(year(1990)).withCloseable { it.count() } } == 0
+            inTransaction { repository.streamAll(year(1997)).withCloseable { it.collect(Collectors.toSet()) } } == [
+                new Employee(temporal_id: 8, employee_id: 1, name: 'Homer Simpson',   job: 'Snow Plow Driver', from_date: year(1997), to_date: year(1998)),
+                margeLatestJob(),
+                skinnerLatestJob(),
+                new Employee(temporal_id: 7, employee_id: 4, name: 'Barney Gumble',   job: 'Human Guinea Pig', from_date: year(1997), to_date: year(1999))
+            ] as Set
+    }
+
+    def "streamAll Spec"() {
+        expect:
+            inTransaction {
+                repository.streamAll((Specification<Employee>)((root, _, cb) -> cb.equal(root.get("employee_id"), 1)), year(1995))
+                        .withCloseable { it.collect(Collectors.toList()) }
+            } == [new Employee(temporal_id: 1, employee_id: 1, name: 'Homer Simpson',   job: 'Nuclear Technician', from_date: year(1995), to_date: year(1996))]
+            inTransaction {
+                repository.streamAll((Specification<Employee>)((root, _, cb) -> cb.equal(root.get("job"), 'Astronaut')), year(1995))
+                        .withCloseable { it.count() }
+            } == 0
+    }
+
+    def "streamAll - streamed entities are detached"() {
+        expect:
+            inTransaction {
+                repository.streamAll(year(1997)).withCloseable { stream -> stream.allMatch { !entityManager.contains(it) } }
+            }
+    }
+
+    private <R> R inTransaction(Closure<R> closure) {
+        return new TransactionTemplate(transactionManager).execute { closure.call() }
+    }
+}
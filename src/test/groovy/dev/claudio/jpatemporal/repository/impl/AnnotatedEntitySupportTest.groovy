@@ -1,5 +1,6 @@
 package dev.claudio.jpatemporal.repository.impl
 
+import dev.claudio.jpatemporal.annotation.Fingerprint
 import dev.claudio.jpatemporal.annotation.FromDate
 import dev.claudio.jpatemporal.annotation.TemporalId
 import dev.claudio.jpatemporal.annotation.ToDate
@@ -41,6 +42,9 @@ class AnnotatedEntitySupportTest extends Specification {
             entitySupport.temporalId == temporalId
             entitySupport.fromDate == fromDate
             entitySupport.toDate == toDate
+            entitySupport.fingerprint == null
+            !entitySupport.hasFingerprint()
+            entitySupport.allAttributes == [uniqueKey, temporalId, fromDate, toDate] as Set
         where:
             targetClass           | uniqueKey | temporalId    | fromDate    | toDate
             ClassAllAnnotations   | 'a'       | 'b'           | 'c'         | 'd'
@@ -48,6 +52,20 @@ class AnnotatedEntitySupportTest extends Specification {
             ClassExtendsTemporal  | 'a'       | 'temporal_id' | 'from_date' | 'to_date'
     }
 
+    def "AnnotatedEntitySupport constructor should set optional fingerprint"() {
+        when:
+            AnnotatedEntitySupport entitySupport = new AnnotatedEntitySupport(ClassWithFingerprint);
+        then:
+            entitySupport.hasFingerprint()
+            entitySupport.fingerprint == 'e'
+            entitySupport.allAttributes == ['a', 'temporal_id', 'from_date', 'to_date', 'e'] as Set
+    }
+
+    class ClassWithFingerprint extends Temporal {
+        @UniqueKey Object a
+        @Fingerprint String e
+    }
+
     class ClassMissingUniqueKey {
         @TemporalId Object b
         @FromDate Object c
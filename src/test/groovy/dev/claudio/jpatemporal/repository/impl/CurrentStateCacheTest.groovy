@@ -0,0 +1,118 @@
+package dev.claudio.jpatemporal.repository.impl
+
+import org.springframework.transaction.support.TransactionSynchronization
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.function.UnaryOperator
+
+class CurrentStateCacheTest extends Specification {
+
+    def cache = new CurrentStateCache<Integer, StringBuilder>(2, Duration.ZERO, { new StringBuilder(it) } as UnaryOperator)
+
+    def cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) TransactionSynchronizationManager.clearSynchronization()
+    }
+
+    def "hits are copies, including cached absences"() {
+        given:
+            def entity = new StringBuilder('Homer')
+            cache.put(1, entity, cache.generation())
+            cache.put(2, null, cache.generation())
+        when:
+            entity.append(' Simpson')
+        then:
+            cache.get(1).entity().get().toString() == 'Homer'
+            !cache.get(2).entity().isPresent()
+            cache.get(3) == null
+    }
+
+    def "rows read before an invalidation aren't cached"() {
+        given:
+            def generation = cache.generation()
+        when:
+            cache.invalidate([5] as Set)
+            cache.put(1, new StringBuilder('Homer'), generation)
+        then:
+            cache.get(1) == null
+        when:
+            cache.put(1, new StringBuilder('Homer'), cache.generation())
+        then:
+            cache.get(1) != null
+    }
+
+    def "least recently used entries are evicted"() {
+        given:
+            cache.put(1, new StringBuilder('Homer'), cache.generation())
+            cache.put(2, new StringBuilder('Marge'), cache.generation())
+            cache.get(1)
+        when:
+            cache.put(3, new StringBuilder('Bart'), cache.generation())
+        then:
+            cache.size() == 2
+            cache.get(2) == null
+    }
+
+    def "entries expire"() {
+        given:
+            def expiringCache = new CurrentStateCache<Integer, StringBuilder>(2, Duration.ofMillis(1), { new StringBuilder(it) } as UnaryOperator)
+            expiringCache.put(1, new StringBuilder('Homer'), expiringCache.generation())
+        when:
+            sleep(10)
+        then:
+            expiringCache.get(1) == null
+    }
+
+    def "writes outside of a transaction invalidate straight away"() {
+        given:
+            cache.put(1, new StringBuilder('Homer'), cache.generation())
+        when:
+            cache.markWritten([1] as Set)
+        then:
+            cache.get(1) == null
+            !cache.isWrittenInTransaction(1)
+    }
+
+    def "writes within a transaction are invalidated on completion"() {
+        given:
+            cache.put(1, new StringBuilder('Homer'), cache.generation())
+            cache.put(2, new StringBuilder('Marge'), cache.generation())
+            TransactionSynchronizationManager.initSynchronization()
+        when:
+            cache.markWritten([1] as Set)
+        then:
+            cache.isWrittenInTransaction(1)
+            !cache.isWrittenInTransaction(2)
+            cache.get(1) != null
+        when:
+            TransactionSynchronizationManager.synchronizations.each { it.afterCompletion(TransactionSynchronization.STATUS_COMMITTED) }
+        then:
+            cache.get(1) == null
+            cache.get(2) != null
+        when: 'all rows are written'
+            cache.markWritten(null)
+            TransactionSynchronizationManager.synchronizations.each { it.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK) }
+        then:
+            cache.size() == 0
+    }
+
+    def "within a transaction rows are cached against the generation of its first use of the cache"() {
+        given:
+            TransactionSynchronizationManager.initSynchronization()
+            def generation = cache.transactionGeneration()
+        when: 'another transaction commits a write after the first use'
+            cache.invalidate([5] as Set)
+        then:
+            cache.transactionGeneration() == generation
+        when:
+            cache.put(1, new StringBuilder('Homer'), cache.transactionGeneration())
+        then:
+            cache.get(1) == null
+        when:
+            TransactionSynchronizationManager.synchronizations.each { it.afterCompletion(TransactionSynchronization.STATUS_COMMITTED) }
+            TransactionSynchronizationManager.clearSynchronization()
+        then:
+            cache.transactionGeneration() == cache.generation()
+    }
+}
@@ -58,6 +58,75 @@ class EntityAccessSupportTest extends Specification {
             thrown(JpaTemporalException)
     }
 
+    def "accessor() resolves a reusable accessor for declared attributes"() {
+        given:
+            def entityAccessSupport = new EntityAccessSupport<ClassBean>(ClassBean.class, ['a'] as Set);
+            def accessor = entityAccessSupport.accessor('a')
+            def targetEntity = new ClassBean()
+        expect:
+            accessor.get(targetEntity) == 'a1'
+            targetEntity.getAused
+        when:
+            accessor.set(targetEntity, 'a2')
+        then:
+            targetEntity.setAused
+            targetEntity.@a == 'a2'
+        when:
+            entityAccessSupport.accessor('b')
+        then:
+            thrown(JpaTemporalException)
+    }
+
+    def "EntityAccessSupport boxes and unboxes primitive attributes"() {
+        given:
+            def entityAccessSupport = new EntityAccessSupport<ClassPrimitives>(ClassPrimitives.class, ['a', 'b'] as Set);
+            def targetEntity = new ClassPrimitives()
+        when:
+            entityAccessSupport.setAttribute('a', targetEntity, 5)
+            entityAccessSupport.setAttribute('b', targetEntity, 6L)
+        then:
+            entityAccessSupport.getAttribute('a', targetEntity) == 5
+            entityAccessSupport.getAttribute('b', targetEntity) == 6L
+            targetEntity.a == 5
+            targetEntity.b == 6L
+    }
+
+    def "EntityAccessSupport wraps exceptions thrown by bound accessors: #value"() {
+        given:
+            def entityAccessSupport = new EntityAccessSupport<ClassPrimitives>(ClassPrimitives.class, ['a'] as Set);
+            assert EntityAccessSupport.isBindable(ClassPrimitives.getMethod('setA', int))
+        when:
+            entityAccessSupport.setAttribute('a', new ClassPrimitives(), value)
+        then:
+            def e = thrown(JpaTemporalException)
+            causeType.isInstance(e.cause)
+        where:
+            value | causeType
+            null  | NullPointerException
+            'a'   | ClassCastException
+    }
+
+    def "EntityAccessSupport falls back to method handles for methods that can't be bound"() {
+        given:
+            def entityAccessSupport = new EntityAccessSupport<PackagePrivateBean>(PackagePrivateBean.class, ['a'] as Set);
+            def targetEntity = new PackagePrivateBean()
+            assert !EntityAccessSupport.isBindable(PackagePrivateBean.getMethod('getA'))
+        when:
+            entityAccessSupport.setAttribute('a', targetEntity, 5)
+        then:
+            entityAccessSupport.getAttribute('a', targetEntity) == 5
+            targetEntity.getA() == 5
+        when:
+            entityAccessSupport.setAttribute('a', targetEntity, null)
+        then:
+            thrown(JpaTemporalException)
+    }
+
+    class ClassPrimitives {
+        int a
+        public long b
+    }
+
     class ClassPublicFields {
         public Object a = 'a1'
         public Object b = 'b1'
@@ -0,0 +1,53 @@
+package dev.claudio.jpatemporal.repository.impl
+
+import dev.claudio.jpatemporal.exception.JpaTemporalException
+import spock.lang.Specification
+
+import java.time.Instant
+
+class FingerprintSupportTest extends Specification {
+
+    static final Map<String, Class<?>> ATTRIBUTE_TYPES = [amount: BigDecimal, data: byte[], count: int, at: Instant, name: String]
+
+    def fingerprintSupport = new FingerprintSupport<ClassVersioned>(ATTRIBUTE_TYPES, new EntityAccessSupport<>(ClassVersioned, ATTRIBUTE_TYPES.keySet()))
+
+    def "equal values hash the same regardless of their representation"() {
+        given:
+            def entity = new ClassVersioned(amount: 1.0G, data: [1, 2] as byte[], count: 3, at: Instant.parse('2020-01-01T00:00:00.123456Z'), name: 'Homer')
+            def equalEntity = new ClassVersioned(amount: 1.00G, data: [1, 2] as byte[], count: 3, at: Instant.parse('2020-01-01T00:00:00.123456789Z'), name: 'Homer')
+        expect:
+            fingerprintSupport.fingerprint(entity) == fingerprintSupport.fingerprint(equalEntity)
+            fingerprintSupport.fingerprint(new ClassVersioned(amount: 0.00G)) == fingerprintSupport.fingerprint(new ClassVersioned(amount: 0G))
+    }
+
+    def "different values hash differently: #changed"() {
+        given:
+            def entity = new ClassVersioned(amount: 1.0G, data: [1, 2] as byte[], count: 3, name: 'Homer')
+            def changedEntity = new ClassVersioned(amount: 1.0G, data: [1, 2] as byte[], count: 3, name: 'Homer')
+            changed.each { attribute, value -> changedEntity[attribute] = value }
+        expect:
+            fingerprintSupport.fingerprint(entity) != fingerprintSupport.fingerprint(changedEntity)
+        where:
+            changed << [[amount: 1.1G], [data: [1, 3] as byte[]], [count: 4], [name: null], [at: Instant.EPOCH]]
+    }
+
+    def "attributes of unsupported types are rejected"() {
+        when:
+            new FingerprintSupport<ClassUnsupported>([address: Object], new EntityAccessSupport<>(ClassUnsupported, ['address'] as Set))
+        then:
+            def e = thrown(JpaTemporalException)
+            e.message.contains('address')
+    }
+
+    static class ClassVersioned {
+        BigDecimal amount
+        byte[] data
+        int count
+        Instant at
+        String name
+    }
+
+    static class ClassUnsupported {
+        Object address
+    }
+}
@@ -0,0 +1,67 @@
+package dev.claudio.jpatemporal.repository.impl
+
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.Instant
+import java.util.function.UnaryOperator
+
+class HistoryCacheTest extends Specification {
+
+    static final Instant PAST = Instant.parse('2000-01-01T00:00:00Z')
+
+    def cache = new HistoryCache<Integer, StringBuilder>(2, Duration.ofMinutes(5), { new StringBuilder(it) } as UnaryOperator)
+
+    def "isCacheable()"() {
+        expect:
+            cache.isCacheable(PAST)
+            cache.isCacheable(Instant.now().minus(Duration.ofMinutes(6)))
+            !cache.isCacheable(Instant.now().minus(Duration.ofMinutes(4)))
+            !cache.isCacheable(Instant.now())
+            !cache.isCacheable(null)
+    }
+
+    def "hits are copies, including cached absences"() {
+        given:
+            def entity = new StringBuilder('Homer')
+            cache.put(1, PAST, entity)
+            cache.put(2, PAST, null)
+        when:
+            entity.append(' Simpson')
+            def hits = cache.getAll([1, 2, 3], PAST)
+        then:
+            hits.keySet() == [1, 2] as Set
+            hits[1].get().toString() == 'Homer'
+            !hits[2].isPresent()
+        when:
+            hits[1].get().append(' Simpson')
+        then:
+            cache.getAll([1], PAST)[1].get().toString() == 'Homer'
+            cache.getAll([1], PAST.plusSeconds(1)).isEmpty()
+    }
+
+    def "least recently used entries are evicted"() {
+        given:
+            cache.put(1, PAST, new StringBuilder('Homer'))
+            cache.put(2, PAST, new StringBuilder('Marge'))
+            cache.getAll([1], PAST)
+        when:
+            cache.put(3, PAST, new StringBuilder('Bart'))
+        then:
+            cache.size() == 2
+            cache.getAll([1, 2, 3], PAST).keySet() == [1, 3] as Set
+    }
+
+    def "valueCopier() copies mutable values"() {
+        given:
+            def bytes = [1, 2] as byte[]
+            def date = new Date(0)
+            def text = 'Homer'
+        expect:
+            HistoryCache.valueCopier(byte[]).apply(bytes) == bytes
+            !HistoryCache.valueCopier(byte[]).apply(bytes).is(bytes)
+            HistoryCache.valueCopier(Date).apply(date) == date
+            !HistoryCache.valueCopier(Date).apply(date).is(date)
+            HistoryCache.valueCopier(String).apply(text).is(text)
+    }
+}
@@ -0,0 +1,37 @@
+package dev.claudio.jpatemporal.repository.impl
+
+import spock.lang.Specification
+
+class InListPartitionerTest extends Specification {
+
+    def "partition()"() {
+        expect:
+            InListPartitioner.partition([], 8, 1) == []
+            InListPartitioner.partition([1], 8, 1) == [[1]]
+            InListPartitioner.partition([1, 2, 3], 8, 1) == [[1, 2, 3, 3]]
+            InListPartitioner.partition([1, 2, 3, 3, 2, 1], 8, 1) == [[1, 2, 3, 3]]
+            InListPartitioner.partition(1..5, 8, 1) == [[1, 2, 3, 4, 5, 5, 5, 5]]
+            InListPartitioner.partition(1..10, 8, 1) == [[1, 2, 3, 4, 5, 6, 7, 8], [9, 10]]
+            InListPartitioner.partition(1..10, 6, 1) == [[1, 2, 3, 4, 5, 6], [7, 8, 9, 10]]
+        and: 'values spanning multiple parameters'
+            InListPartitioner.partition(1..5, 8, 2) == [[1, 2, 3, 4], [5]]
+            InListPartitioner.partition(1..3, 8, 3) == [[1, 2], [3]]
+            InListPartitioner.partition(1..2, 1, 3) == [[1], [2]]
+    }
+
+    def "paddedSize()"() {
+        expect:
+            InListPartitioner.paddedSize(size, maxSize) == expected
+        where:
+            size | maxSize || expected
+            1    | 512     || 1
+            2    | 512     || 2
+            3    | 512     || 4
+            5    | 512     || 8
+            64   | 512     || 64
+            65   | 512     || 128
+            300  | 512     || 512
+            300  | 400     || 400
+            400  | 400     || 400
+    }
+}
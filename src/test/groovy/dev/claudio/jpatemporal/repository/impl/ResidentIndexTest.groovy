@@ -0,0 +1,136 @@
+package dev.claudio.jpatemporal.repository.impl
+
+import org.springframework.transaction.support.TransactionSynchronization
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.Instant
+import java.util.function.UnaryOperator
+
+class ResidentIndexTest extends Specification {
+
+    static final Instant MAX = Instant.parse('9999-01-01T00:00:00Z')
+
+    List<Instant> loads = []
+    List<ResidentIndex.Row<Integer, StringBuilder>> rows = [
+            row(1, 1, year(1995), year(1996), 'Homer 1'), row(1, 2, year(1996), MAX, 'Homer 2'),
+            row(2, 3, year(1995), MAX, 'Marge'),
+            row(3, 4, year(1997), year(1999), 'Barney')
+    ]
+    List<ResidentIndex.Row<Integer, StringBuilder>> changedRows = []
+    ResidentIndex.Loader<Integer, StringBuilder> loader = { Instant since ->
+        loads << since
+        return since == null ? rows : changedRows
+    }
+    def index = new ResidentIndex<Integer, StringBuilder>(loader, { new StringBuilder(it) } as UnaryOperator, Duration.ofHours(1), Duration.ofSeconds(300))
+
+    def cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) TransactionSynchronizationManager.clearSynchronization()
+    }
+
+    def "rows are looked up as of an instant"() {
+        expect:
+            index.findAllById([1, 2, 3, 4], year(1995)).collect { it.toString() } == ['Homer 1', 'Marge']
+            index.findAllById([1], year(1996)).collect { it.toString() } == ['Homer 2']
+            index.findAllById([1], year(1994)).isEmpty()
+            index.findAll(year(1998)).collect { it.toString() }.sort() == ['Barney', 'Homer 2', 'Marge']
+            index.findAll(year(1999)).collect { it.toString() }.sort() == ['Homer 2', 'Marge']
+            index.count(year(1994)) == 0
+            index.count(year(1995)) == 2
+            index.count(year(1998)) == 3
+            index.count(year(1999)) == 2
+            index.size() == 4
+            loads == [null]
+    }
+
+    def "lookups return copies"() {
+        when:
+            index.findAllById([2], year(2000)).first().append(' Simpson')
+        then:
+            index.findAllById([2], year(2000)).first().toString() == 'Marge'
+    }
+
+    def "writes make the next read merge the changed rows by temporal id"() {
+        given:
+            index.size()
+            def now = Instant.now()
+            changedRows << row(1, 2, year(1996), now, 'Homer 2') << row(1, 5, now, MAX, 'Homer 3')
+        expect:
+            index.findAll(now).collect { it.toString() }.sort() == ['Homer 2', 'Marge']
+        when:
+            index.markWritten()
+        then:
+            index.findAll(now).collect { it.toString() }.sort() == ['Homer 3', 'Marge']
+            index.findAllById([1], year(2000)).collect { it.toString() } == ['Homer 2']
+            index.count(now) == 2
+            index.size() == 5
+            loads.size() == 2
+            loads[1] != null
+    }
+
+    def "re-read rows already indexed don't replace the snapshot"() {
+        given:
+            index.size()
+            def snapshot = index.snapshot
+            changedRows << row(1, 2, year(1996), MAX, 'Homer 2') << row(2, 3, year(1995), MAX, 'Marge')
+        when:
+            index.markWritten()
+            index.size()
+        then:
+            loads.size() == 2
+            index.snapshot.is(snapshot)
+    }
+
+    def "merged rows keep the sorted dates in line with the indexed rows"() {
+        given:
+            index.size()
+            def now = Instant.now()
+            changedRows << row(1, 2, year(1996), MAX, 'Homer 2') << row(2, 3, year(1995), year(1998), 'Marge') <<
+                    row(2, 6, year(1998), MAX, 'Marge 2') << row(4, 7, year(1994), now, 'Skinner')
+        when:
+            index.markWritten()
+            index.size()
+        then:
+            index.snapshot.fromDates == ([year(1995), year(1996), year(1995), year(1997), year(1998), year(1994)].collect(ResidentIndex.&toMicros).sort() as long[])
+            index.snapshot.toDates == ([year(1996), MAX, year(1998), year(1999), MAX, now].collect(ResidentIndex.&toMicros).sort() as long[])
+            index.count(year(1994)) == 1
+            index.count(year(1998)) == 4
+            index.count(year(1999)) == 3
+            index.count(now) == 2
+            index.size() == 6
+    }
+
+    def "sorted values are merged"() {
+        expect:
+            ResidentIndex.Snapshot.mergeSorted(values as long[], removed as long[], added as long[]) == merged as long[]
+        where:
+            values          | removed | added     || merged
+            []              | []      | []        || []
+            []              | []      | [1, 2]    || [1, 2]
+            [1, 3, 5]       | []      | [0, 4, 6] || [0, 1, 3, 4, 5, 6]
+            [1, 3, 3, 5]    | [3, 5]  | [3]       || [1, 3, 3]
+            [1, 2, 3]       | [1, 2, 3] | []      || []
+    }
+
+    def "reads within a writing transaction bypass the index until it completes"() {
+        given:
+            TransactionSynchronizationManager.initSynchronization()
+        when:
+            index.markWritten()
+        then:
+            index.isWrittenInTransaction()
+        when:
+            TransactionSynchronizationManager.synchronizations.each { it.afterCompletion(TransactionSynchronization.STATUS_COMMITTED) }
+        then:
+            !index.isWrittenInTransaction()
+    }
+
+    private static ResidentIndex.Row<Integer, StringBuilder> row(int id, int temporalId, Instant from, Instant to, String value) {
+        return new ResidentIndex.Row<>(id, temporalId, from, to, new StringBuilder(value))
+    }
+
+    private static Instant year(int year) {
+        return Instant.parse("${year}-01-01T00:00:00Z")
+    }
+}
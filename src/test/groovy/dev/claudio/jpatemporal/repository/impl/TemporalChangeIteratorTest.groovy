@@ -0,0 +1,53 @@
+package dev.claudio.jpatemporal.repository.impl
+
+import dev.claudio.jpatemporal.repository.TemporalChange
+import groovy.transform.Canonical
+import spock.lang.Specification
+
+import java.time.Instant
+
+class TemporalChangeIteratorTest extends Specification {
+
+    static final Instant T1 = Instant.parse('2000-01-01T00:00:00Z')
+    static final Instant T2 = Instant.parse('2001-01-01T00:00:00Z')
+    static final Instant MAX = Instant.parse('9999-01-01T00:00:00Z')
+
+    def "merges opened and closed rows per instant"() {
+        given:
+            def opened = [new Row(1, T1, T2), new Row(2, T1, MAX), new Row(1, T2, MAX), new Row(3, T2, MAX)]
+            def closed = [new Row(4, Instant.EPOCH, T1), new Row(1, T1, T2), new Row(2, T1, T2)]
+        when:
+            def changes = iterator(opened, closed).collect { [it.type, it.id, it.changedAt] }
+        then:
+            changes == [
+                [TemporalChange.Type.INSERT, 1, T1],
+                [TemporalChange.Type.INSERT, 2, T1],
+                [TemporalChange.Type.DELETE, 4, T1],
+                [TemporalChange.Type.UPDATE, 1, T2],
+                [TemporalChange.Type.INSERT, 3, T2],
+                [TemporalChange.Type.DELETE, 2, T2],
+            ]
+    }
+
+    def "no rows"() {
+        when:
+            def iterator = iterator([], [])
+        then:
+            !iterator.hasNext()
+        when:
+            iterator.next()
+        then:
+            thrown(NoSuchElementException)
+    }
+
+    private static TemporalChangeIterator<Row, Integer> iterator(List<Row> opened, List<Row> closed) {
+        return new TemporalChangeIterator<Row, Integer>(opened.iterator(), closed.iterator(), { it.id }, { it.from }, { it.to })
+    }
+
+    @Canonical
+    static class Row {
+        Integer id
+        Instant from
+        Instant to
+    }
+}
@@ -1,9 +1,15 @@
 package dev.claudio.jpatemporal;
 
 import dev.claudio.jpatemporal.annotation.EnableJpaTemporalRepositories;
+import dev.claudio.jpatemporal.metrics.MicrometerTemporalRepositoryMetrics;
+import dev.claudio.jpatemporal.metrics.TemporalRepositoryMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
 
 @Slf4j
 @SpringBootApplication
@@ -12,4 +18,24 @@ public class SpringDataJpaTemporalApplication {
     public static void main(String[] args) {
         SpringApplication.run(SpringDataJpaTemporalApplication.class, args);
     }
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    public TemporalRepositoryMetrics temporalRepositoryMetrics(MeterRegistry meterRegistry) {
+        return new MicrometerTemporalRepositoryMetrics(meterRegistry);
+    }
+
+    @Bean
+    public StatementCounter statementCounter() {
+        return new StatementCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer(StatementCounter statementCounter) {
+        return properties -> properties.put("hibernate.session_factory.statement_inspector", statementCounter);
+    }
 }
@@ -0,0 +1,28 @@
+package dev.claudio.jpatemporal;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the SQL of every statement Hibernate prepares. A JDBC batch prepares its statement once, so counting the
+ * prepared inserts tells batched inserts apart from inserts executed one by one.
+ */
+public class StatementCounter implements StatementInspector {
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        statements.add(sql);
+        return sql;
+    }
+
+    public long count(String sqlPrefix) {
+        return statements.stream().filter(it -> it.toLowerCase().startsWith(sqlPrefix.toLowerCase())).count();
+    }
+
+    public void clear() {
+        statements.clear();
+    }
+}
@@ -0,0 +1,9 @@
+package dev.claudio.jpatemporal.domain;
+
+import java.time.Instant;
+
+public interface EmployeeJob {
+    String getName();
+    String getJob();
+    Instant getFrom_date();
+}
@@ -0,0 +1,18 @@
+package dev.claudio.jpatemporal.domain;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@EqualsAndHashCode
+public class EmployeeJobDto {
+    private final String name;
+    private final String job;
+
+    public EmployeeJobDto(final String name, final String job) {
+        this.name = name;
+        this.job = job;
+    }
+}
@@ -1,9 +1,19 @@
 package dev.claudio.jpatemporal.repository;
 
 import dev.claudio.jpatemporal.domain.Employee;
+import dev.claudio.jpatemporal.domain.EmployeeJob;
+import dev.claudio.jpatemporal.domain.EmployeeJobDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface Repository extends TemporalRepository<Employee, Integer> {
 
@@ -12,4 +22,44 @@ public interface Repository extends TemporalRepository<Employee, Integer> {
 
     @Query("SELECT e FROM Employee e WHERE e.name = ?1 order by e.from_date")
     List<Employee> findByEmployeeNameFullAuditCustomQuery(final String name);
+
+    List<Employee> findByName(final String name);
+
+    List<Employee> findByName(final String name, final Instant asOfInstant);
+
+    Optional<Employee> findByJob(final String job);
+
+    Optional<Employee> findByJob(final String job, final Instant asOfInstant);
+
+    List<Employee> findByNameEndingWithOrderByJobAsc(final String name);
+
+    List<Employee> findByNameContainingIgnoreCase(final String name, final Sort sort);
+
+    List<Employee> findByJobIn(final Collection<String> jobs, final Instant asOfInstant);
+
+    List<Employee> findByJobStartingWithOrNameIsNull(final String job);
+
+    Optional<Employee> findFirstByNameEndingWithOrderByJobDesc(final String name, final Instant asOfInstant);
+
+    Page<Employee> findByNameNot(final String name, final Pageable pageable);
+
+    Slice<Employee> findSliceByNameEndingWith(final String name, final Pageable pageable);
+
+    Stream<Employee> streamByNameEndingWith(final String name);
+
+    long countByNameEndingWith(final String name);
+
+    long countByNameEndingWith(final String name, final Instant asOfInstant);
+
+    boolean existsByJob(final String job);
+
+    boolean existsByJob(final String job, final Instant asOfInstant);
+
+    List<EmployeeJob> findJobsByNameEndingWithOrderByJobAsc(final String name);
+
+    Optional<EmployeeJobDto> findJobDtoByJob(final String job, final Instant asOfInstant);
+
+    Page<EmployeeJobDto> findJobDtosByNameEndingWith(final String name, final Pageable pageable);
+
+    <P> List<P> findByNameEndingWithOrderByJobAsc(final String name, final Class<P> type);
 }
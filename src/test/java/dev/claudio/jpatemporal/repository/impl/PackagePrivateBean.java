@@ -0,0 +1,16 @@
+package dev.claudio.jpatemporal.repository.impl;
+
+/**
+ * Bean whose accessors can't be bound by {@link java.lang.invoke.LambdaMetafactory} as the class isn't public.
+ */
+class PackagePrivateBean {
+    private int a;
+
+    public int getA() {
+        return a;
+    }
+
+    public void setA(int a) {
+        this.a = a;
+    }
+}